@@ -0,0 +1,17 @@
+package benchmarks;
+
+/** A Benchmark measures one entry point of the game on boards of a given
+ * size generated from a given seed. */
+public interface Benchmark {
+    /** Prepare everything the measured operation needs for a board with
+     * nodes Nodes generated from seed, and return that operation. Time spent
+     * here is not measured. */
+    Operation setup(int nodes, long seed);
+
+    /** An Operation is the code being measured. */
+    interface Operation {
+        /** Run the measured code once and return a value derived from its
+         * result, so that the JIT cannot discard the work. */
+        long run();
+    }
+}
@@ -0,0 +1,268 @@
+package benchmarks;
+
+import java.awt.Point;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import controllers.PlanetX;
+import generation.DelaunayTriangulation;
+import models.Board;
+import models.CsrGraph;
+import models.KdTree;
+import models.Node;
+import utils.Heap;
+import utils.IntHeap;
+import utils.MinPath;
+
+/** The benchmark suite for board generation, path finding, priority queues
+ * and spatial queries. Every benchmark is run for each board size and each
+ * seed, so results are reproducible from run to run. The JMH benchmarks of
+ * the jmh module run the same operations; this suite needs no build tool or
+ * dependencies. See the README for how to build and run both.
+ *
+ *   --bench=REGEX      Run only benchmarks whose names match REGEX
+ *   --sizes=N,N,...    Board sizes in Nodes (default 5,100,750,10000,100000)
+ *   --seeds=S,S,...    Seeds (default 0,1,2)
+ *   --warmup=N         Warmup iterations (default 3)
+ *   --iterations=N     Measured iterations (default 5)
+ *   --time=MS          Minimum duration of an iteration (default 200)
+ *   --out=FILE         Write the CSV results to FILE instead of stdout
+ *   --baseline=FILE    Compare against the CSV results in FILE
+ *   --tolerance=X      Slowdown counted as a regression (default 0.10)
+ *   --list             List the benchmarks and exit
+ *
+ * The exit status is 1 if any result regressed against the baseline. */
+public class Benchmarks {
+    /* The number of queries run by one closestNode operation. */
+    private static final int QUERIES= 1024;
+
+    /** Return all benchmarks by name, in the order they are run. */
+    static Map<String, Benchmark> all() {
+        Map<String, Benchmark> bs= new LinkedHashMap<>();
+
+        // building a whole Board, including triangulation and trimming
+        bs.put("board", (nodes, seed) -> () ->
+            board(nodes, seed).getEdges().size());
+
+        // the triangulation alone, with the points a Board of this size uses
+        bs.put("delaunay", (nodes, seed) -> () ->
+            new DelaunayTriangulation(nodes, new Random(seed),
+                PlanetX.WIDTH, PlanetX.HEIGHT).getEdges().size());
+        for (DelaunayTriangulation.Engine e :
+                DelaunayTriangulation.Engine.values()) {
+            bs.put("delaunay." + e, (nodes, seed) -> () ->
+                new DelaunayTriangulation(nodes, new Random(seed),
+                    PlanetX.WIDTH, PlanetX.HEIGHT, e).getEdgeCount());
+        }
+
+        // shortest path from Earth to the target on a Board
+        bs.put("minPath", (nodes, seed) -> {
+            Board b= board(nodes, seed);
+            Node earth= b.getEarth(), target= b.getTarget();
+            return () -> MinPath.minPath(earth, target).size();
+        });
+        for (MinPath.Engine e : MinPath.Engine.values()) {
+            bs.put("minPath." + e, (nodes, seed) -> {
+                Board b= board(nodes, seed);
+                CsrGraph g= b.getGraph();
+                int earth= b.getEarth().getId(), target= b.getTarget().getId();
+                return () -> MinPath.minPath(g, earth, target, e).weight();
+            });
+        }
+
+        // nodes inserts, nodes/2 decreases and nodes polls
+        bs.put("heap", (nodes, seed) -> {
+            double[] ps= priorities(nodes, seed);
+            return () -> {
+                Heap<Integer> h= new Heap<>();
+                for (int v= 0; v < nodes; ++v)
+                    h.insert(v, ps[v]);
+                for (int v= 0; v < nodes; v+= 2)
+                    h.changePriority(v, ps[v] / 2);
+                long s= 0;
+                while (h.size() > 0)
+                    s+= h.poll();
+                return s;
+            };
+        });
+        bs.put("intHeap", (nodes, seed) -> {
+            double[] ps= priorities(nodes, seed);
+            return () -> {
+                IntHeap h= new IntHeap(nodes);
+                for (int v= 0; v < nodes; ++v)
+                    h.insert(v, ps[v]);
+                for (int v= 0; v < nodes; v+= 2)
+                    h.changePriority(v, ps[v] / 2);
+                long s= 0;
+                while (!h.isEmpty())
+                    s+= h.poll();
+                return s;
+            };
+        });
+
+        // QUERIES uniformly random closest-Node queries on a Board
+        bs.put("closestNode", (nodes, seed) ->
+            closestNode(board(nodes, seed), seed));
+        for (Board.Index i : Board.Index.values()) {
+            bs.put("closestNode." + i, (nodes, seed) ->
+                closestNode(board(nodes, seed, i), seed));
+        }
+
+        // QUERIES uniformly random 8-nearest queries on a Board's k-d tree
+        bs.put("kNearest", (nodes, seed) -> {
+            KdTree t= board(nodes, seed).getKdTree();
+            Point[] qs= queries(seed);
+            return () -> {
+                long s= 0;
+                for (Point q : qs)
+                    s+= t.kNearest(q.x, q.y, 8).size();
+                return s;
+            };
+        });
+        return bs;
+    }
+
+    /** Return the Board with exactly nodes Nodes generated from seed, with
+     * the game's dimensions and gem bounds. */
+    static Board board(int nodes, long seed) {
+        return board(nodes, seed, Board.Index.GRID);
+    }
+
+    /** Return the Board with exactly nodes Nodes generated from seed, with
+     * the game's dimensions and gem bounds, using spatial index index. */
+    static Board board(int nodes, long seed, Board.Index index) {
+        return new Board.BoardBuilder()
+                .size(PlanetX.WIDTH, PlanetX.HEIGHT)
+                .seed(seed)
+                .nodeBounds(nodes, nodes)
+                .gemBounds(PlanetX.MIN_GEMS, PlanetX.MAX_GEMS)
+                .index(index)
+                .build();
+    }
+
+    /** Return an operation running QUERIES closest-Node queries on b. */
+    private static Benchmark.Operation closestNode(Board b, long seed) {
+        Point[] qs= queries(seed);
+        return () -> {
+            long s= 0;
+            for (Point q : qs)
+                s+= b.getClosestNode(q).getId();
+            return s;
+        };
+    }
+
+    /** Return QUERIES uniformly random points on the game's board, generated
+     * from seed. */
+    private static Point[] queries(long seed) {
+        Random r= new Random(seed);
+        Point[] qs= new Point[QUERIES];
+        for (int i= 0; i < QUERIES; ++i)
+            qs[i]= new Point(r.nextInt(PlanetX.WIDTH + 1),
+                r.nextInt(PlanetX.HEIGHT + 1));
+        return qs;
+    }
+
+    /** Return n random priorities in [0, 1) generated from seed. */
+    private static double[] priorities(int n, long seed) {
+        Random r= new Random(seed);
+        double[] ps= new double[n];
+        for (int i= 0; i < n; ++i)
+            ps[i]= r.nextDouble();
+        return ps;
+    }
+
+    /** Run the benchmarks selected by argv; see the class comment. */
+    public static void main(String[] argv) throws IOException {
+        Pattern bench= Pattern.compile(".*");
+        int[] sizes= {5, 100, 750, 10_000, 100_000};
+        long[] seeds= {0, 1, 2};
+        int warmup= 3, iterations= 5;
+        long time= 200;
+        double tolerance= 0.10;
+        String outFile= null, baseline= null;
+        boolean list= false;
+        for (String arg : argv) {
+            int eq= arg.indexOf('=');
+            String opt= eq < 0 ? arg : arg.substring(0, eq);
+            String val= eq < 0 ? null : arg.substring(eq + 1);
+            try {
+                switch (opt) {
+                case "--bench": bench= Pattern.compile(val); break;
+                case "--sizes": sizes= parseInts(val); break;
+                case "--seeds": seeds= parseLongs(val); break;
+                case "--warmup": warmup= Integer.parseInt(val); break;
+                case "--iterations": iterations= Integer.parseInt(val); break;
+                case "--time": time= Long.parseLong(val); break;
+                case "--out": outFile= val; break;
+                case "--baseline": baseline= val; break;
+                case "--tolerance": tolerance= Double.parseDouble(val); break;
+                case "--list": list= true; break;
+                default:
+                    System.err.println("Error: invalid argument \"" + arg + '"');
+                    System.exit(2);
+                }
+            } catch (NullPointerException | IllegalArgumentException e) {
+                System.err.println("Error: invalid value in \"" + arg + '"');
+                System.exit(2);
+            }
+        }
+
+        Map<String, Benchmark> bs= all();
+        if (list) {
+            for (String name : bs.keySet())
+                System.out.println(name);
+            return;
+        }
+
+        PrintStream out= System.out;
+        if (outFile != null) {
+            try {
+                out= new PrintStream(outFile);
+            } catch (FileNotFoundException e) {
+                System.err.println("Error: cannot write " + outFile);
+                System.exit(2);
+            }
+        }
+        Harness h= new Harness(warmup, iterations, time, tolerance, out,
+            System.err);
+        if (baseline != null)
+            h.loadBaseline(baseline);
+        h.begin();
+        for (Map.Entry<String, Benchmark> e : bs.entrySet()) {
+            if (!bench.matcher(e.getKey()).matches()) continue;
+            for (int n : sizes)
+                for (long s : seeds)
+                    h.run(e.getKey(), e.getValue(), n, s);
+        }
+        if (out != System.out)
+            out.close();
+        System.err.println("done (" + h.sink() + ")");
+        if (h.regressions() > 0) {
+            System.err.println(h.regressions() + " regression(s)");
+            System.exit(1);
+        }
+    }
+
+    /** Return the comma-separated ints in s. */
+    private static int[] parseInts(String s) {
+        String[] f= s.split(",");
+        int[] a= new int[f.length];
+        for (int i= 0; i < f.length; ++i)
+            a[i]= Integer.parseInt(f[i].trim());
+        return a;
+    }
+
+    /** Return the comma-separated longs in s. */
+    private static long[] parseLongs(String s) {
+        String[] f= s.split(",");
+        long[] a= new long[f.length];
+        for (int i= 0; i < f.length; ++i)
+            a[i]= Long.parseLong(f[i].trim());
+        return a;
+    }
+}
@@ -0,0 +1,343 @@
+package benchmarks;
+
+import java.awt.Point;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import controllers.PlanetX;
+import generation.DelaunayTriangulation;
+import generation.UEdge;
+import models.Board;
+import models.CsrGraph;
+import models.Edge;
+import models.Node;
+import utils.MinPath;
+import utils.Path;
+
+/** The correctness checks that go with the benchmark suite: each one compares
+ * an optimized entry point of the game against a simple reference
+ * implementation on boards of each size generated from each seed, and
+ * reports every answer on which they disagree. See the README for how to
+ * build and run them.
+ *
+ *   --check=REGEX      Run only checks whose names match REGEX
+ *   --sizes=N,N,...    Board sizes in Nodes (default 5,30,100)
+ *   --seeds=A-B        Seeds A..B, or a list S,S,... (default 0-999)
+ *   --list             List the checks and exit
+ *
+ * The checks on every pair of Nodes take time cubic in the board size, so
+ * pass larger sizes with --check=closestNode.* and fewer seeds.
+ *
+ * A check that throws counts as a mismatch. The exit status is 1 if any
+ * check found a mismatch. */
+public class Checks {
+    /* The number of random queries run on each board by closestNode, on top
+     * of the lattice of queries on and between cell boundaries. */
+    private static final int QUERIES= 4096;
+
+    /* The spacing of that lattice; a divisor of the grid's cell size. */
+    private static final int LATTICE= 32;
+
+    /** A Check compares an implementation against a reference on one
+     * board. */
+    interface Check {
+        /** Check the board with nodes Nodes generated from seed, writing each
+         * mismatch to log, and return the number of mismatches. */
+        int run(int nodes, long seed, PrintStream log);
+    }
+
+    /** Return all checks by name, in the order they are run. */
+    static Map<String, Check> all() {
+        Map<String, Check> cs= new LinkedHashMap<>();
+
+        // closest-Node queries of each spatial index against a linear scan
+        for (Board.Index i : Board.Index.values())
+            cs.put("closestNode." + i, (nodes, seed, log) ->
+                closestNode(Benchmarks.board(nodes, seed, i), log));
+
+        // each triangulation engine against LEGACY, on points that include
+        // duplicates and points outside the rectangle
+        for (DelaunayTriangulation.Engine e :
+                DelaunayTriangulation.Engine.values())
+            if (e != DelaunayTriangulation.Engine.LEGACY)
+                cs.put("triangulation." + e, (nodes, seed, log) ->
+                    triangulation(e, nodes, seed, log));
+
+        // bidirectional Dijkstra against plain Dijkstra, on every node pair
+        cs.put("bidirectional", (nodes, seed, log) ->
+            bidirectional(Benchmarks.board(nodes, seed), log));
+        cs.put("bidirectional.CSR", (nodes, seed, log) ->
+            bidirectionalCsr(Benchmarks.board(nodes, seed), log));
+        return cs;
+    }
+
+    /** Compare the closest-Node queries of b with a linear scan of its
+     * Nodes, at the lattice points and at QUERIES random points; return the
+     * number of queries answered with a Node that is not closest. Ties may
+     * be broken either way. */
+    private static int closestNode(Board b, PrintStream log) {
+        List<Point> qs= new ArrayList<>();
+        for (int x= 0; x <= PlanetX.WIDTH; x+= LATTICE)
+            for (int y= 0; y <= PlanetX.HEIGHT; y+= LATTICE)
+                qs.add(new Point(x, y));
+        Random r= new Random(b.getSeed());
+        for (int k= 0; k < QUERIES; ++k)
+            qs.add(new Point(r.nextInt(PlanetX.WIDTH + 1),
+                r.nextInt(PlanetX.HEIGHT + 1)));
+
+        int mismatches= 0;
+        for (Point q : qs) {
+            long best= Long.MAX_VALUE;
+            for (Node n : b.getNodes())
+                best= Math.min(best, dist2(n, q));
+            Node got= b.getClosestNode(q);
+            if (dist2(got, q) != best) {
+                log.printf("  seed %d: closest to (%d, %d) is at distance "
+                    + "%.1f, got %s at %.1f%n", b.getSeed(), q.x, q.y,
+                    Math.sqrt(best), got, Math.sqrt(dist2(got, q)));
+                ++mismatches;
+            }
+        }
+        return mismatches;
+    }
+
+    /** Compare the triangulation computed by engine e of nodes points
+     * generated from seed with the one computed by LEGACY; return 1 if their
+     * vertices, in order, or their edges differ, and 0 otherwise. About one
+     * point in eight repeats an earlier one, and about one in eight lies
+     * outside the rectangle, some of those outside the super-triangle too. */
+    private static int triangulation(DelaunayTriangulation.Engine e,
+            int nodes, long seed, PrintStream log) {
+        int w= PlanetX.WIDTH, h= PlanetX.HEIGHT;
+        Random r= new Random(seed);
+        List<Point> pts= new ArrayList<>();
+        while (pts.size() < nodes) {
+            int k= r.nextInt(8);
+            if (k == 0 && !pts.isEmpty()) {
+                Point p= pts.get(r.nextInt(pts.size()));
+                pts.add(new Point(p));
+            } else if (k == 1) {
+                int x= r.nextInt(5 * w) - 2 * w, y= r.nextInt(5 * h) - 2 * h;
+                if (x < 0 || x > w || y < 0 || y > h) pts.add(new Point(x, y));
+            } else {
+                pts.add(new Point(r.nextInt(w + 1), r.nextInt(h + 1)));
+            }
+        }
+
+        Point bl= new Point(0, 0), tr= new Point(w, h);
+        DelaunayTriangulation expected= new DelaunayTriangulation(
+            pts.iterator(), bl, tr, DelaunayTriangulation.Engine.LEGACY);
+        DelaunayTriangulation got=
+            new DelaunayTriangulation(pts.iterator(), bl, tr, e);
+        List<Point> ev= new ArrayList<>(expected.getVertices());
+        List<Point> gv= new ArrayList<>(got.getVertices());
+        Set<List<Point>> ee= ends(expected.getEdges());
+        Set<List<Point>> ge= ends(got.getEdges());
+        if (gv.equals(ev) && ge.equals(ee)) return 0;
+        log.printf("  seed %d: expected %d vertices and %d edges, got %d "
+            + "vertices%s and %d edges%s%n", seed, ev.size(), ee.size(),
+            gv.size(), gv.equals(ev) ? "" : " (differing)", ge.size(),
+            ge.equals(ee) ? "" : " (differing)");
+        return 1;
+    }
+
+    /** Return the endpoints of the UEdges in es, as lists of two Points.
+     * UEdges themselves are equal only if their Points are the same
+     * objects. */
+    private static Set<List<Point>> ends(Set<UEdge> es) {
+        Set<List<Point>> s= new HashSet<>();
+        for (UEdge e : es)
+            s.add(List.of(e.p1(), e.p2()));
+        return s;
+    }
+
+    /** Compare MinPath.bidirectionalPath with MinPath.minPath on every pair
+     * of Nodes of b; return the number of pairs on which the path is not a
+     * path between them or its weight differs. */
+    private static int bidirectional(Board b, PrintStream log) {
+        int mismatches= 0;
+        for (Node first : b.getNodes()) {
+            for (Node last : b.getNodes()) {
+                int expected= MinPath.pathWeight(MinPath.minPath(first, last));
+                List<Node> path= MinPath.bidirectionalPath(first, last);
+                int weight= weight(path, first, last);
+                if (weight != expected) {
+                    log.printf("  seed %d: path from %d to %d has weight %d, "
+                        + "got %s of weight %d%n", b.getSeed(), first.getId(),
+                        last.getId(), expected, ids(path), weight);
+                    ++mismatches;
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    /** Compare MinPath.Engine.BIDIRECTIONAL with Engine.HEAP on every pair
+     * of nodes of b's CsrGraph; return the number of pairs on which the path
+     * is not a path between them or its weight differs. */
+    private static int bidirectionalCsr(Board b, PrintStream log) {
+        CsrGraph g= b.getGraph();
+        int mismatches= 0;
+        for (int first= 0; first < g.nodeCount(); ++first) {
+            for (int last= 0; last < g.nodeCount(); ++last) {
+                int expected= MinPath.minPath(g, first, last).weight();
+                Path path= MinPath.minPath(g, first, last,
+                    MinPath.Engine.BIDIRECTIONAL);
+                int weight= weight(g, path, first, last);
+                if (weight != expected) {
+                    log.printf("  seed %d: path from %d to %d has weight %d, "
+                        + "got %s of weight %d%n", b.getSeed(), first, last,
+                        expected, path, weight);
+                    ++mismatches;
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    /** Return the weight of path if it leads from first to last along
+     * Edges, and -1 otherwise. */
+    private static int weight(List<Node> path, Node first, Node last) {
+        if (path.isEmpty() || path.get(0) != first
+                || path.get(path.size() - 1) != last)
+            return -1;
+        int w= 0;
+        for (int k= 1; k < path.size(); ++k) {
+            Edge e= path.get(k - 1).getEdge(path.get(k));
+            if (e == null) return -1;
+            w+= e.length;
+        }
+        return w;
+    }
+
+    /** Return the weight of path if it leads from first to last along edges
+     * of g with the hop lengths it gives, and -1 otherwise. */
+    private static int weight(CsrGraph g, Path path, int first, int last) {
+        if (path.isEmpty() || path.first() != first || path.last() != last)
+            return -1;
+        int w= 0;
+        for (int k= 1; k < path.size(); ++k) {
+            int hop= g.weight(path.node(k - 1), path.node(k));
+            if (hop < 0 || hop != path.hopLength(k - 1)) return -1;
+            w+= hop;
+        }
+        return w == path.weight() ? w : -1;
+    }
+
+    /** Return the ids of the Nodes on path. */
+    private static String ids(List<Node> path) {
+        StringBuilder sb= new StringBuilder("[");
+        for (Node n : path)
+            sb.append(sb.length() > 1 ? ", " : "").append(n.getId());
+        return sb.append(']').toString();
+    }
+
+    /** Return the squared distance between n and q. */
+    private static long dist2(Node n, Point q) {
+        long dx= n.getX() - q.x, dy= n.getY() - q.y;
+        return dx * dx + dy * dy;
+    }
+
+    /** Run the checks selected by argv; see the class comment. */
+    public static void main(String[] argv) {
+        Pattern check= Pattern.compile(".*");
+        int[] sizes= {5, 30, 100};
+        long[] seeds= seedRange(0, 999);
+        boolean list= false;
+        for (String arg : argv) {
+            int eq= arg.indexOf('=');
+            String opt= eq < 0 ? arg : arg.substring(0, eq);
+            String val= eq < 0 ? null : arg.substring(eq + 1);
+            try {
+                switch (opt) {
+                case "--check": check= Pattern.compile(val); break;
+                case "--sizes": sizes= parseInts(val); break;
+                case "--seeds": seeds= parseSeeds(val); break;
+                case "--list": list= true; break;
+                default:
+                    System.err.println("Error: invalid argument \"" + arg + '"');
+                    System.exit(2);
+                }
+            } catch (NullPointerException | IllegalArgumentException e) {
+                System.err.println("Error: invalid value in \"" + arg + '"');
+                System.exit(2);
+            }
+        }
+
+        Map<String, Check> cs= all();
+        if (list) {
+            for (String name : cs.keySet())
+                System.out.println(name);
+            return;
+        }
+
+        int failed= 0;
+        for (Map.Entry<String, Check> e : cs.entrySet()) {
+            if (!check.matcher(e.getKey()).matches()) continue;
+            for (int n : sizes) {
+                System.err.printf("%s nodes=%d ... ", e.getKey(), n);
+                int mismatches= 0;
+                for (long s : seeds) {
+                    try {
+                        mismatches+= e.getValue().run(n, s, System.err);
+                    } catch (RuntimeException x) {
+                        System.err.printf("  seed %d: threw %s%n", s, x);
+                        ++mismatches;
+                    }
+                }
+                System.err.println(mismatches == 0 ? "ok"
+                    : mismatches + " mismatch(es)");
+                if (mismatches > 0) ++failed;
+            }
+        }
+        if (failed > 0) {
+            System.err.println(failed + " check(s) failed");
+            System.exit(1);
+        }
+        System.err.println("all checks passed");
+    }
+
+    /** Return the seeds in s: a range A-B, or comma-separated seeds. */
+    private static long[] parseSeeds(String s) {
+        int dash= s.indexOf('-', 1);
+        if (dash < 0)
+            return parseLongs(s);
+        return seedRange(Long.parseLong(s.substring(0, dash).trim()),
+            Long.parseLong(s.substring(dash + 1).trim()));
+    }
+
+    /** Return the seeds lo..hi. */
+    private static long[] seedRange(long lo, long hi) {
+        if (hi < lo || hi - lo >= Integer.MAX_VALUE)
+            throw new IllegalArgumentException("bad seed range");
+        long[] a= new long[(int) (hi - lo + 1)];
+        for (int i= 0; i < a.length; ++i)
+            a[i]= lo + i;
+        return a;
+    }
+
+    /** Return the comma-separated ints in s. */
+    private static int[] parseInts(String s) {
+        String[] f= s.split(",");
+        int[] a= new int[f.length];
+        for (int i= 0; i < f.length; ++i)
+            a[i]= Integer.parseInt(f[i].trim());
+        return a;
+    }
+
+    /** Return the comma-separated longs in s. */
+    private static long[] parseLongs(String s) {
+        String[] f= s.split(",");
+        long[] a= new long[f.length];
+        for (int i= 0; i < f.length; ++i)
+            a[i]= Long.parseLong(f[i].trim());
+        return a;
+    }
+}
@@ -0,0 +1,149 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/** An instance times Benchmarks and writes one CSV row per benchmark, board
+ * size and seed. Each measurement iteration runs the operation repeatedly
+ * for at least minNanos and records the mean time of one run; warmup
+ * iterations are run the same way first and discarded.
+ *
+ * The CSV format, which is also the baseline format, is
+ *
+ *     benchmark,nodes,seed,iterations,ops,mean_ns,min_ns,stdev_ns
+ *
+ * where ops is the total number of measured runs and the last three columns
+ * are the mean, minimum and standard deviation of the per-iteration time of
+ * one run, in nanoseconds. */
+public class Harness {
+    /** The header line of the CSV output. */
+    public static final String HEADER=
+        "benchmark,nodes,seed,iterations,ops,mean_ns,min_ns,stdev_ns";
+
+    private final int warmups; // Number of discarded iterations
+    private final int iterations; // Number of measured iterations
+    private final long minNanos; // Minimum duration of an iteration
+    private final PrintStream out; // Where CSV rows go
+    private final PrintStream log; // Where progress and comparisons go
+
+    /* Mean times in the baseline, keyed by key(benchmark, nodes, seed);
+     * empty if there is no baseline. */
+    private final Map<String, Double> baseline= new HashMap<>();
+
+    /* A mean more than (1 + tolerance) times its baseline is a regression. */
+    private final double tolerance;
+
+    /* The number of regressions found so far. */
+    private int regressions;
+
+    /* Accumulates the results of all runs, so they are never dead code. */
+    private long sink;
+
+    /** Constructor: a harness running w warmup and n measured iterations of
+     * at least minMillis ms each, writing rows to out and progress to log,
+     * and flagging results more than tolerance slower than the baseline. */
+    public Harness(int w, int n, long minMillis, double tolerance,
+            PrintStream out, PrintStream log) {
+        if (w < 0 || n < 1 || minMillis < 0)
+            throw new IllegalArgumentException("bad iteration settings");
+        warmups= w;
+        iterations= n;
+        minNanos= minMillis * 1_000_000;
+        this.tolerance= tolerance;
+        this.out= out;
+        this.log= log;
+    }
+
+    /** Load baseline results from the CSV file at path, as written by a
+     * previous run. */
+    public void loadBaseline(String path) throws IOException {
+        try (BufferedReader r= new BufferedReader(new FileReader(path))) {
+            String line= r.readLine();
+            if (!HEADER.equals(line))
+                throw new IOException(path + " is not a benchmark CSV file");
+            while ((line= r.readLine()) != null) {
+                String[] f= line.split(",");
+                baseline.put(key(f[0], Integer.parseInt(f[1]),
+                    Long.parseLong(f[2])), Double.parseDouble(f[5]));
+            }
+        }
+    }
+
+    /** Write the CSV header. */
+    public void begin() {
+        out.println(HEADER);
+    }
+
+    /** Measure benchmark b, named name, on a board of nodes Nodes from seed,
+     * and write its row. */
+    public void run(String name, Benchmark b, int nodes, long seed) {
+        log.printf("%s nodes=%d seed=%d ... ", name, nodes, seed);
+        Benchmark.Operation op= b.setup(nodes, seed);
+        for (int i= 0; i < warmups; ++i)
+            iteration(op);
+
+        long ops= 0;
+        double sum= 0, sumSq= 0, min= Double.MAX_VALUE;
+        for (int i= 0; i < iterations; ++i) {
+            long[] r= iteration(op);
+            double t= (double) r[0] / r[1];
+            ops+= r[1];
+            sum+= t;
+            sumSq+= t * t;
+            min= Math.min(min, t);
+        }
+        double mean= sum / iterations;
+        double stdev= Math.sqrt(Math.max(0, sumSq / iterations - mean * mean));
+        out.printf(Locale.ROOT, "%s,%d,%d,%d,%d,%.1f,%.1f,%.1f%n",
+            name, nodes, seed, iterations, ops, mean, min, stdev);
+        out.flush();
+
+        log.printf(Locale.ROOT, "%.3f ms", mean / 1e6);
+        Double base= baseline.get(key(name, nodes, seed));
+        if (base != null) {
+            double ratio= mean / base;
+            log.printf(Locale.ROOT, " (%.2fx baseline)", ratio);
+            if (ratio > 1 + tolerance) {
+                log.print(" REGRESSION");
+                ++regressions;
+            }
+        }
+        log.println();
+    }
+
+    /** Return the number of results so far that regressed against the
+     * baseline. */
+    public int regressions() {
+        return regressions;
+    }
+
+    /** Return a value depending on every result computed, to be printed so
+     * that no measured work can be optimized away. */
+    public long sink() {
+        return sink;
+    }
+
+    /** Run op until at least minNanos have passed (at least once), and return
+     * {elapsed nanoseconds, number of runs}. */
+    private long[] iteration(Benchmark.Operation op) {
+        long runs= 0;
+        long start= System.nanoTime();
+        long elapsed;
+        do {
+            sink+= op.run();
+            ++runs;
+            elapsed= System.nanoTime() - start;
+        } while (elapsed < minNanos);
+        return new long[] {elapsed, runs};
+    }
+
+    /** Return the key of a result in baseline. */
+    private static String key(String name, int nodes, long seed) {
+        return name + ',' + nodes + ',' + seed;
+    }
+}
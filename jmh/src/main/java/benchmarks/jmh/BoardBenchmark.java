@@ -0,0 +1,13 @@
+package benchmarks.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import models.Board;
+
+/** Building a whole Board, including triangulation and trimming. */
+public class BoardBenchmark extends Boards {
+    @Benchmark
+    public int board() {
+        return board(nodes, seed, Board.Index.GRID).getEdges().size();
+    }
+}
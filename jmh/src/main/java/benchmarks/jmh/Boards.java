@@ -0,0 +1,66 @@
+package benchmarks.jmh;
+
+import java.awt.Point;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controllers.PlanetX;
+import models.Board;
+
+/** The boards every JMH benchmark runs on, and how the benchmarks are run.
+ * The board sizes and seeds are the same as the defaults of
+ * benchmarks.Benchmarks. Each result is the average time of one operation in
+ * 2 forks of 5 warmup and 5 measured iterations of 1 second each; pass -f,
+ * -wi, -i and -r to JMH to change this, and -p nodes=N,N,... or
+ * -p seed=S,S,... to choose the boards. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations= 5, time= 1, timeUnit= TimeUnit.SECONDS)
+@Measurement(iterations= 5, time= 1, timeUnit= TimeUnit.SECONDS)
+@Fork(2)
+@State(Scope.Benchmark)
+public abstract class Boards {
+    /* The number of queries run by one spatial query operation. */
+    static final int QUERIES= 1024;
+
+    /** The number of Nodes on the board. */
+    @Param({"5", "100", "750", "10000", "100000"})
+    public int nodes;
+
+    /** The seed the board is generated from. */
+    @Param({"0", "1", "2"})
+    public long seed;
+
+    /** Return the Board with exactly nodes Nodes generated from seed, with
+     * the game's dimensions and gem bounds, using spatial index index. */
+    static Board board(int nodes, long seed, Board.Index index) {
+        return new Board.BoardBuilder()
+                .size(PlanetX.WIDTH, PlanetX.HEIGHT)
+                .seed(seed)
+                .nodeBounds(nodes, nodes)
+                .gemBounds(PlanetX.MIN_GEMS, PlanetX.MAX_GEMS)
+                .index(index)
+                .build();
+    }
+
+    /** Return QUERIES uniformly random points on the game's board, generated
+     * from seed. */
+    static Point[] queries(long seed) {
+        Random r= new Random(seed);
+        Point[] qs= new Point[QUERIES];
+        for (int i= 0; i < QUERIES; ++i)
+            qs[i]= new Point(r.nextInt(PlanetX.WIDTH + 1),
+                r.nextInt(PlanetX.HEIGHT + 1));
+        return qs;
+    }
+}
@@ -0,0 +1,35 @@
+package benchmarks.jmh;
+
+import java.awt.Point;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import models.Board;
+
+/** QUERIES uniformly random closest-Node queries on a Board, with each
+ * Board.Index. */
+public class ClosestNodeBenchmark extends Boards {
+    /** The spatial index of the Board. */
+    @Param
+    public Board.Index index;
+
+    private Board board;
+    private Point[] queries;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        board= board(nodes, seed, index);
+        queries= queries(seed);
+    }
+
+    @Benchmark
+    public long closestNode() {
+        long s= 0;
+        for (Point q : queries)
+            s+= board.getClosestNode(q).getId();
+        return s;
+    }
+}
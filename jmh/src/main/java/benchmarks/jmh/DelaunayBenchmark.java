@@ -0,0 +1,34 @@
+package benchmarks.jmh;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import controllers.PlanetX;
+import generation.DelaunayTriangulation;
+
+/** The triangulation alone, with the points a Board of this size uses: the
+ * default constructor, and each DelaunayTriangulation.Engine. */
+public class DelaunayBenchmark extends Boards {
+    /** The engine benchmarked by engine(). */
+    @State(Scope.Benchmark)
+    public static class Engines {
+        @Param
+        public DelaunayTriangulation.Engine engine;
+    }
+
+    @Benchmark
+    public int delaunay() {
+        return new DelaunayTriangulation(nodes, new Random(seed),
+            PlanetX.WIDTH, PlanetX.HEIGHT).getEdges().size();
+    }
+
+    @Benchmark
+    public int engine(Engines e) {
+        return new DelaunayTriangulation(nodes, new Random(seed),
+            PlanetX.WIDTH, PlanetX.HEIGHT, e.engine).getEdgeCount();
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks.jmh;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+import utils.Heap;
+import utils.IntHeap;
+
+/** Priority queues: nodes inserts, nodes/2 decreases and nodes polls, with
+ * random priorities generated from seed. */
+public class HeapBenchmark extends Boards {
+    private double[] priorities;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random r= new Random(seed);
+        priorities= new double[nodes];
+        for (int i= 0; i < nodes; ++i)
+            priorities[i]= r.nextDouble();
+    }
+
+    @Benchmark
+    public long heap() {
+        Heap<Integer> h= new Heap<>();
+        for (int v= 0; v < nodes; ++v)
+            h.insert(v, priorities[v]);
+        for (int v= 0; v < nodes; v+= 2)
+            h.changePriority(v, priorities[v] / 2);
+        long s= 0;
+        while (h.size() > 0)
+            s+= h.poll();
+        return s;
+    }
+
+    @Benchmark
+    public long intHeap() {
+        IntHeap h= new IntHeap(nodes);
+        for (int v= 0; v < nodes; ++v)
+            h.insert(v, priorities[v]);
+        for (int v= 0; v < nodes; v+= 2)
+            h.changePriority(v, priorities[v] / 2);
+        long s= 0;
+        while (!h.isEmpty())
+            s+= h.poll();
+        return s;
+    }
+}
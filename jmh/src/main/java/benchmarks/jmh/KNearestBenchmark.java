@@ -0,0 +1,30 @@
+package benchmarks.jmh;
+
+import java.awt.Point;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+import models.Board;
+import models.KdTree;
+
+/** QUERIES uniformly random 8-nearest queries on a Board's k-d tree. */
+public class KNearestBenchmark extends Boards {
+    private KdTree tree;
+    private Point[] queries;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        tree= board(nodes, seed, Board.Index.GRID).getKdTree();
+        queries= queries(seed);
+    }
+
+    @Benchmark
+    public long kNearest() {
+        long s= 0;
+        for (Point q : queries)
+            s+= tree.kNearest(q.x, q.y, 8).size();
+        return s;
+    }
+}
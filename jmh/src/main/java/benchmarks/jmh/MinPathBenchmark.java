@@ -0,0 +1,46 @@
+package benchmarks.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import models.Board;
+import models.CsrGraph;
+import models.Node;
+import utils.MinPath;
+
+/** The shortest path from Earth to the target on a Board: MinPath.minPath on
+ * the Nodes, and each MinPath.Engine on the Board's CsrGraph. */
+public class MinPathBenchmark extends Boards {
+    /** The engine benchmarked by engine(). */
+    @State(Scope.Benchmark)
+    public static class Engines {
+        @Param
+        public MinPath.Engine engine;
+    }
+
+    private Node earth, target;
+    private CsrGraph graph;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Board b= board(nodes, seed, Board.Index.GRID);
+        earth= b.getEarth();
+        target= b.getTarget();
+        graph= b.getGraph();
+    }
+
+    @Benchmark
+    public int minPath() {
+        return MinPath.minPath(earth, target).size();
+    }
+
+    @Benchmark
+    public int engine(Engines e) {
+        return MinPath.minPath(graph, earth.getId(), target.getId(), e.engine)
+            .weight();
+    }
+}
@@ -20,6 +20,10 @@ public interface Controller {
     /** Update the model by one tick. */
     public void update();
 
+    /** Update the model by ms milliseconds of simulated time at once. This
+     * is exactly as accurate as ms / TICKTIME separate ticks. */
+    public void update(int ms);
+
     /** Create (but don't start) a new game with the long value of str as a
      * seed, or a random seed of str is not a valid long. */
     public void newGame(String str);
@@ -1,8 +1,10 @@
 package controllers;
 
+import java.io.File;
 import java.util.Random;
 import java.util.function.Supplier;
 
+import gui.GUI;
 import models.Board;
 import models.Controllable.AbortException;
 import models.Controllable.SolutionFailedException;
@@ -23,6 +25,7 @@ public class PlanetX implements Controller {
 
     private long seed; // The seed used to generate this game.
     private Spaceship spaceship; // The solution implementing this game. 
+    private final boolean instant; // True iff moves complete without ticks.
 
     private boolean started; // True iff this game has started.
     private boolean failed; // True iff this game's solution failed.
@@ -32,6 +35,10 @@ public class PlanetX implements Controller {
 
     private static final Random RNG= new Random(); // used for random seed generation.
 
+    /* The directory holding a snapshot of the Board of each seed played, or
+     * null to generate every Board (see Board.BoardBuilder.snapshot). */
+    private static File boardCache;
+
     /* A Spaceship supplier used to get new Spaceships (e.g. for restarting). */
     private static final Supplier<Spaceship> ships= () -> new MySpaceship();
 
@@ -40,6 +47,14 @@ public class PlanetX implements Controller {
 
     /** Constructor: an game with seed s, spaceship sp, and View v. */
     public PlanetX(long s, Spaceship sp, View v) {
+        this(s, sp, v, false);
+    }
+
+    /** Constructor: an game with seed s, spaceship sp, and View v. If
+     * instant is true, the ship completes each move at once instead of
+     * traveling tick by tick (see PlanetXModel). */
+    public PlanetX(long s, Spaceship sp, View v, boolean instant) {
+        this.instant= instant;
         view= v;
         init(s, sp);
         started= false;
@@ -56,13 +71,15 @@ public class PlanetX implements Controller {
 
         seed= s;
         spaceship= sp;
-        Board b= new Board.BoardBuilder()
+        Board.BoardBuilder bb= new Board.BoardBuilder()
                 .size(WIDTH, HEIGHT)
                 .seed(s)
                 .nodeBounds(MIN_NODES, MAX_NODES)
-                .gemBounds(MIN_GEMS, MAX_GEMS)
-                .build();
-        model= new PlanetXModel(b);
+                .gemBounds(MIN_GEMS, MAX_GEMS);
+        if (boardCache != null)
+            bb.snapshot(new File(boardCache, "board-" + s + ".bin"));
+        Board b= bb.build();
+        model= new PlanetXModel(b, instant);
         thread= new ModelThread();
         started= false;
         view.init(this, model);
@@ -94,9 +111,19 @@ public class PlanetX implements Controller {
     }
     
     @Override
-    public synchronized void update() {
+    public void update() {
+        update(TICKTIME);
+    }
+
+    @Override
+    public void update(int ms) {
+        update(model, ms);
+    }
+
+    /** Advance m by ms milliseconds, reporting the first solution failure. */
+    private synchronized void update(PlanetXModel m, int ms) {
         try {
-            model.update(TICKTIME);
+            m.update(ms);
         } catch (SolutionFailedException e) {
             if (!failed) {
                 failed= true;
@@ -109,6 +136,10 @@ public class PlanetX implements Controller {
     /** An instance runs a model in a separate thread. It can be killed by
      * calling kill(). */
     private class ModelThread extends Thread {
+        /* The model this thread runs: the game's model when it was created,
+         * which a new game or reset may have replaced since. */
+        private final PlanetXModel model= PlanetX.this.model;
+
         /** Runs through the game until it finishes, fails, or is aborted. */
         @Override
         public void run() {
@@ -119,7 +150,11 @@ public class PlanetX implements Controller {
             } catch (SolutionFailedException e) {
                 view.errprintln("Solution failed with reason: " + e.getMessage());
                 view.endGame(0);
-            } catch (AbortException e) {}
+            } catch (AbortException e) {
+                // an instant game aborts itself when its solution fails, so
+                // report the failure the way a tick would
+                if (model.isInstant()) update(model, TICKTIME);
+            }
         }
 
         /** Kill this model thread by aborting the underlying model. */
@@ -171,11 +206,16 @@ public class PlanetX implements Controller {
      * 
      * -s, --seed=SEED  Run this game using the seed SEED 
      * -g, --gui        Use the GUI (graphical user interface) view 
-     * -q, --quiet      Use a quiet view, which will not output anything. */
+     * -q, --quiet      Use a quiet view, which will not output anything.
+     * -i, --instant    Complete every move at once instead of traveling.
+     * --fps=FPS        Draw FPS frames per second in the GUI (default 60)
+     * --board-cache=DIR  Save the Board of each seed in DIR, and load it
+     *                    from there when the seed is played again */
     public static void main(String[] argv) {
         // parse arguments
         View view= null;
         Long seed= null;
+        boolean instant= false;
         for (int i= 0; i < argv.length; ++i) {
             try {
                 if (argv[i].equals("-g") || argv[i].equals("--gui")) {
@@ -202,6 +242,25 @@ public class PlanetX implements Controller {
                     } else {
                         view= new QuietView();
                     }
+                } else if (argv[i].equals("-i")
+                        || argv[i].equals("--instant")) {
+                    instant= true;
+                } else if (argv[i].startsWith("--fps=")) {
+                    try {
+                        GUI.setTargetFps(Integer.parseInt(argv[i].substring(6)));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Invalid frame rate \""
+                                + argv[i] + '"');
+                        return;
+                    }
+                } else if (argv[i].startsWith("--board-cache=")) {
+                    File dir= new File(argv[i].substring(14));
+                    if (!dir.isDirectory() && !dir.mkdirs()) {
+                        System.err.println("Error: cannot create board cache "
+                                + "directory \"" + dir + '"');
+                        return;
+                    }
+                    boardCache= dir;
                 } else if (argv[i].length() > 7
                         && argv[i].substring(0, 7).equals("--seed=")) {
                     seed= Long.parseLong(argv[i].substring(7));
@@ -229,6 +288,6 @@ public class PlanetX implements Controller {
         // begin the game with the appropriate parameters
         if (view == null)
             view= new GUIView();
-        new PlanetX(seed, ships.get(), view);
+        new PlanetX(seed, ships.get(), view, instant);
     }
 }
@@ -1,6 +1,7 @@
 package controllers;
 
 import models.Node;
+import java.util.List;
 import java.util.Set;
 
 /** Return to Earth on time while collecting as many gems as possible.
@@ -33,4 +34,13 @@ public interface ReturnStage {
     /** Return the remaining amount of distance that your ship can travel.
      * Your solution must end before this becomes negative. */
     public int getDistanceLeft();
+
+    /** Return the length of a shortest path from n to Earth. The distances
+     * are computed once per map, so this takes constant time. */
+    public int distanceToEarth(Node n);
+
+    /** Return a new list of the Nodes on a shortest path from n to Earth,
+     * both included. This takes time proportional to the length of the
+     * path. */
+    public List<Node> pathToEarth(Node n);
 }
@@ -0,0 +1,337 @@
+package controllers;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import models.Board;
+import models.Controllable.AbortException;
+import models.PlanetXModel;
+
+/** An instance plays one Spaceship on many seeds, running games in parallel
+ * on a fixed pool of threads. Every game has its own Board and PlanetXModel
+ * in instant mode (see PlanetXModel), so games share no state and take only
+ * as long as the Spaceship's own computation.
+ *
+ * One result per seed is written, in order of completion, as a CSV row or a
+ * JSON line with the fields seed, score, distance (traveled), rescue and
+ * return (true iff that stage succeeded), failure (the reason the solution
+ * failed, or empty) and millis (wall time of the game).
+ *
+ * A game that runs longer than the tournament's timeout is aborted and
+ * recorded as a failure, so a Spaceship that loops cannot stall the run. */
+public class Tournament {
+    /** The header line of CSV output. */
+    public static final String CSV_HEADER=
+        "seed,score,distance,rescue,return,failure,millis";
+
+    private final Supplier<Spaceship> ships; // Makes a Spaceship per game
+    private final PrintStream out; // Where results are written
+    private final boolean json; // True iff results are JSON lines, not CSV
+    private final long timeout; // Max millis per game, or 0 for no limit
+
+    /* Runs each game with a timeout, on daemon threads so that a game that
+     * ignores its abort cannot keep the JVM alive. */
+    private final ExecutorService timed= Executors.newCachedThreadPool(r -> {
+        Thread t= new Thread(r, "tournament-game");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /* Totals over the games finished so far. */
+    private int games, rescues, returns;
+    private long totalScore;
+    private int minScore= Integer.MAX_VALUE, maxScore= Integer.MIN_VALUE;
+
+    /** Constructor: a tournament of Spaceships from ships writing results to
+     * out, as JSON lines if json is true and as CSV otherwise. Games have no
+     * time limit. */
+    public Tournament(Supplier<Spaceship> ships, PrintStream out,
+            boolean json) {
+        this(ships, out, json, 0);
+    }
+
+    /** Constructor: a tournament as above in which a game is aborted after
+     * timeout milliseconds, or never if timeout is 0.
+     * Precondition: timeout >= 0. */
+    public Tournament(Supplier<Spaceship> ships, PrintStream out,
+            boolean json, long timeout) {
+        this.ships= ships;
+        this.out= out;
+        this.json= json;
+        this.timeout= timeout;
+    }
+
+    /** An instance is the outcome of one game. */
+    public static class Result {
+        public final long seed;
+        public final int score;
+        public final int distance;
+        public final boolean rescue;
+        public final boolean ret;
+        public final String failure; // null iff the solution did not fail
+        public final long millis;
+
+        /** Constructor: an instance with the given fields. */
+        Result(long seed, int score, int distance, boolean rescue,
+                boolean ret, String failure, long millis) {
+            this.seed= seed;
+            this.score= score;
+            this.distance= distance;
+            this.rescue= rescue;
+            this.ret= ret;
+            this.failure= failure;
+            this.millis= millis;
+        }
+    }
+
+    /** Play one game on seed s with a new Spaceship and return its outcome.
+     * As in PlanetX, the score is 0 unless both stages succeed. Anything the
+     * Spaceship throws, and running past the timeout, is recorded as the
+     * game's failure. */
+    public Result play(long s) {
+        long start= System.nanoTime();
+        Board b= new Board.BoardBuilder()
+                .size(PlanetX.WIDTH, PlanetX.HEIGHT)
+                .seed(s)
+                .nodeBounds(PlanetX.MIN_NODES, PlanetX.MAX_NODES)
+                .gemBounds(PlanetX.MIN_GEMS, PlanetX.MAX_GEMS)
+                .build();
+        PlanetXModel model= new PlanetXModel(b, true);
+        if (timeout == 0)
+            return play(s, model, start);
+
+        Future<Result> game= timed.submit(() -> play(s, model, start));
+        String failure;
+        try {
+            return game.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // stop the game at the ship's next move; if it never moves
+            // again, its daemon thread is abandoned
+            model.abort();
+            game.cancel(true);
+            failure= "timed out after " + timeout + " ms";
+        } catch (ExecutionException e) {
+            failure= "threw " + e.getCause();
+        } catch (InterruptedException e) {
+            model.abort();
+            game.cancel(true);
+            Thread.currentThread().interrupt();
+            failure= "interrupted";
+        }
+        return new Result(s, 0, model.getDistanceTraveled(),
+            model.isRescueSuccessful(), model.isReturnSuccessful(), failure,
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Play a game with a new Spaceship on model, the model of seed s, and
+     * return its outcome; start is the System.nanoTime() at which the game
+     * began. */
+    private Result play(long s, PlanetXModel model, long start) {
+        String failure= null;
+        try {
+            Spaceship ship= ships.get();
+            ship.rescue(model.beginRescueStage());
+            if (!model.endRescueStage()) {
+                failure= "rescue() returned at the wrong location.";
+            } else {
+                ship.returnToEarth(model.beginReturnStage());
+                if (!model.endReturnStage())
+                    failure= "returnToEarth() returned at the wrong location.";
+            }
+        } catch (AbortException e) {
+            failure= model.getFailMessage();
+        } catch (Throwable e) {
+            failure= "threw " + e;
+        }
+        boolean success= failure == null && model.isReturnSuccessful();
+        return new Result(s, success ? model.getScore() : 0,
+            model.getDistanceTraveled(), model.isRescueSuccessful(),
+            model.isReturnSuccessful(), failure,
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Play a game on every seed in seeds using a pool of threads threads,
+     * writing each result as soon as its game ends, and return when all
+     * games have ended. */
+    public void run(long[] seeds, int threads) throws InterruptedException {
+        if (!json) out.println(CSV_HEADER);
+        ExecutorService pool= Executors.newFixedThreadPool(threads);
+        for (long s : seeds)
+            pool.execute(() -> record(play(s)));
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        out.flush();
+    }
+
+    /** Write r and add it to the totals. */
+    private synchronized void record(Result r) {
+        if (json) {
+            out.printf("{\"seed\":%d,\"score\":%d,\"distance\":%d,"
+                + "\"rescue\":%b,\"return\":%b,\"failure\":%s,\"millis\":%d}%n",
+                r.seed, r.score, r.distance, r.rescue, r.ret,
+                r.failure == null ? "null" : jsonString(r.failure), r.millis);
+        } else {
+            out.printf("%d,%d,%d,%b,%b,%s,%d%n", r.seed, r.score, r.distance,
+                r.rescue, r.ret, r.failure == null ? "" : csvField(r.failure),
+                r.millis);
+        }
+        ++games;
+        if (r.rescue) ++rescues;
+        if (r.ret) ++returns;
+        totalScore+= r.score;
+        minScore= Math.min(minScore, r.score);
+        maxScore= Math.max(maxScore, r.score);
+    }
+
+    /** Return a summary of the games played so far. */
+    public synchronized String summary() {
+        if (games == 0) return "0 games";
+        return String.format(Locale.ROOT, "%d games, %d rescued, %d returned,"
+            + " score mean %.1f min %d max %d", games, rescues, returns,
+            (double) totalScore / games, minScore, maxScore);
+    }
+
+    /** Return s as a CSV field, quoted if needed. */
+    private static String csvField(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0)
+            return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    /** Return s as a quoted JSON string. */
+    private static String jsonString(String s) {
+        StringBuilder b= new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') b.append('\\').append(c);
+            else if (c < ' ') b.append(String.format("\\u%04x", (int) c));
+            else b.append(c);
+        }
+        return b.append('"').toString();
+    }
+
+    /** Return a supplier of new instances of the Spaceship class named
+     * name, which must have a public no-argument constructor. */
+    static Supplier<Spaceship> shipsOf(String name)
+            throws ReflectiveOperationException {
+        Class<? extends Spaceship> c=
+            Class.forName(name).asSubclass(Spaceship.class);
+        c.getConstructor(); // fail now, not in every game
+        return () -> {
+            try {
+                return c.getConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create " + name, e);
+            }
+        };
+    }
+
+    /** Return the seeds in file path, one per line; blank lines and lines
+     * starting with # are skipped. */
+    static long[] readSeeds(String path) throws IOException {
+        List<Long> seeds= new ArrayList<>();
+        try (BufferedReader r= new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line= r.readLine()) != null) {
+                line= line.trim();
+                if (!line.isEmpty() && !line.startsWith("#"))
+                    seeds.add(Long.parseLong(line));
+            }
+        }
+        long[] a= new long[seeds.size()];
+        for (int i= 0; i < a.length; ++i)
+            a[i]= seeds.get(i);
+        return a;
+    }
+
+    /** Run a tournament. The summary and total wall time are printed to
+     * standard error.
+     *
+     * --seeds=FROM..TO     Play seeds FROM to TO, inclusive (default 0..99)
+     * --seed-file=FILE     Play the seeds listed in FILE instead
+     * --ship=CLASS         The Spaceship class (default student.MySpaceship)
+     * --threads=N          Number of games played at once (default: cores)
+     * --timeout=MS         Abort a game after MS milliseconds, 0 for never
+     *                      (default 60000)
+     * --out=FILE           Write results to FILE instead of standard output
+     * --json               Write JSON lines instead of CSV */
+    public static void main(String[] argv) throws Exception {
+        long[] seeds= null;
+        String seedFile= null, ship= "student.MySpaceship", outFile= null;
+        int threads= Runtime.getRuntime().availableProcessors();
+        long timeout= 60_000;
+        boolean json= false;
+        for (String arg : argv) {
+            try {
+                if (arg.startsWith("--seeds=")) {
+                    String[] r= arg.substring(8).split("\\.\\.");
+                    long from= Long.parseLong(r[0]);
+                    long to= r.length > 1 ? Long.parseLong(r[1]) : from;
+                    if (r.length > 2 || to < from
+                            || to - from >= Integer.MAX_VALUE)
+                        throw new NumberFormatException();
+                    seeds= new long[(int) (to - from + 1)];
+                    for (int i= 0; i < seeds.length; ++i)
+                        seeds[i]= from + i;
+                } else if (arg.startsWith("--seed-file=")) {
+                    seedFile= arg.substring(12);
+                } else if (arg.startsWith("--ship=")) {
+                    ship= arg.substring(7);
+                } else if (arg.startsWith("--threads=")) {
+                    threads= Integer.parseInt(arg.substring(10));
+                    if (threads < 1) throw new NumberFormatException();
+                } else if (arg.startsWith("--timeout=")) {
+                    timeout= Long.parseLong(arg.substring(10));
+                    if (timeout < 0) throw new NumberFormatException();
+                } else if (arg.startsWith("--out=")) {
+                    outFile= arg.substring(6);
+                } else if (arg.equals("--json")) {
+                    json= true;
+                } else {
+                    System.err.println("Error: invalid argument \"" + arg + '"');
+                    return;
+                }
+            } catch (NumberFormatException e) {
+                System.err.println("Error: invalid value in \"" + arg + '"');
+                return;
+            }
+        }
+        if (seedFile != null) {
+            seeds= readSeeds(seedFile);
+        } else if (seeds == null) {
+            seeds= new long[100];
+            for (int i= 0; i < seeds.length; ++i)
+                seeds[i]= i;
+        }
+
+        Supplier<Spaceship> ships;
+        try {
+            ships= shipsOf(ship);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            System.err.println("Error: " + ship + " is not a Spaceship with a "
+                + "public no-argument constructor");
+            return;
+        }
+
+        PrintStream out= outFile == null ? System.out : new PrintStream(outFile);
+        Tournament t= new Tournament(ships, out, json, timeout);
+        long start= System.nanoTime();
+        t.run(seeds, threads);
+        double secs= (System.nanoTime() - start) / 1e9;
+        if (out != System.out) out.close();
+        System.err.println(t.summary());
+        System.err.printf(Locale.ROOT, "%.1f s on %d threads, %.1f games/s%n",
+            secs, threads, seeds.length / secs);
+    }
+}
@@ -0,0 +1,490 @@
+package generation;
+
+import java.util.Arrays;
+
+/** An instance is an incremental Delaunay triangulation of points with int
+ * coordinates, kept in flat int arrays with no object per point or triangle.
+ * It triangulates the same way as DelaunayTriangulation's original engine:
+ * points are added one at a time inside the same enclosing super-triangle,
+ * and a point equal to an earlier one or outside the super-triangle is
+ * omitted. For points in general position, both give the same triangulation.
+ *
+ * Each point is added by Bowyer-Watson insertion: the triangles whose
+ * circumcircles strictly contain the new point (the cavity) are removed, and
+ * the cavity is filled with triangles fanning out from the point. The
+ * triangle containing the point is found by walking from a nearby earlier
+ * point, which is looked up in a grid of the most recent point per cell; or,
+ * when all the points are given to the constructor at once, by walking from
+ * the triangle created last, the points being sorted so that it is close.
+ *
+ * The predicates are exact (see Predicates), so any rectangle works whose
+ * super-triangle has int coordinates. */
+public class ArrayTriangulation implements IntTriangulation {
+    /* The super-triangle's vertices are 0..SUPER-1; points are the rest. */
+    private static final int SUPER= 3;
+
+    /* Vertex v is (xs[v], ys[v]), for v in 0..nv-1. incident[v] is a live
+     * triangle with vertex v. */
+    private int[] xs, ys, incident;
+    private int nv;
+
+    /* Triangle t has vertices tv[3t], tv[3t+1], tv[3t+2] in counterclockwise
+     * order, and nb[3t+k] is the triangle across the edge opposite vertex
+     * tv[3t+k], or -1 if there is none. Slots 0..nt-1 are in use; those of
+     * dead triangles have tv[3t] = -1 and are chained through nb[3t], from
+     * free. */
+    private int[] tv, nb;
+    private int nt;
+    private int free= -1;
+
+    /* The triangle created last. */
+    private int last;
+
+    /* The bounding rectangle of the points, and a grid over it of side x
+     * side cells: grid[c] is the vertex added last in cell c or, if none
+     * is, a vertex in a nearby cell; -1 if there are no vertices yet. */
+    private final int minX, minY, width, height;
+    private int side;
+    private int[] grid;
+
+    /* Scratch space for insert: mark[t] == stamp iff triangle t is in the
+     * current cavity; stack holds cavity triangles to explore; the edges
+     * bounding the cavity are (ea[i], eb[i]), with triangle eo[i] outside;
+     * link[v] is the new triangle whose first vertex is v, or -1. */
+    private int[] mark;
+    private int stamp;
+    private int[] stack;
+    private int[] ea, eb, eo;
+    private int[] link;
+
+    /* State of the generator deciding which edge a walk tries first. */
+    private int walkSeed= 1;
+
+    /** Constructor: an empty triangulation of points in the axis-aligned
+     * rectangle with bottom-left corner (x0, y0) and top-right corner
+     * (x1, y1), with room for about n points before growing. Points outside
+     * the rectangle but inside the super-triangle are still added. Throws an
+     * IllegalArgumentException if the rectangle is empty or so large that
+     * its super-triangle's corners do not have int coordinates. */
+    public ArrayTriangulation(int x0, int y0, int x1, int y1, int n) {
+        checkRectangle(x0, y0, x1, y1);
+        minX= x0;
+        minY= y0;
+        width= x1 - x0 + 1;
+        height= y1 - y0 + 1;
+
+        n= Math.max(n, 16);
+        xs= new int[n + SUPER];
+        ys= new int[n + SUPER];
+        incident= new int[n + SUPER];
+        link= new int[n + SUPER];
+        Arrays.fill(link, -1);
+        tv= new int[3 * (2 * n + 1)];
+        nb= new int[3 * (2 * n + 1)];
+        mark= new int[2 * n + 1];
+        stack= new int[64];
+        ea= new int[64];
+        eb= new int[64];
+        eo= new int[64];
+
+        // the same super-triangle as the original engine, counterclockwise
+        int outer= Math.max(x1 - x0, y1 - y0);
+        addVertex(-outer + x0, -outer + y0);
+        addVertex(3 * outer + x0, -outer + y0);
+        addVertex(-outer + x0, 3 * outer + y0);
+        int t= newTriangle(0, 1, 2);
+        nb[3 * t]= nb[3 * t + 1]= nb[3 * t + 2]= -1;
+        incident[0]= incident[1]= incident[2]= t;
+        last= t;
+        resizeGrid(1);
+    }
+
+    /** Constructor: a triangulation of points 0..n-1 of (px, py), in the
+     * axis-aligned rectangle with bottom-left corner (x0, y0) and top-right
+     * corner (x1, y1), as if they were added one at a time in that order:
+     * a point equal to an earlier one or outside the super-triangle is
+     * omitted, and the others keep their order. Throws an
+     * IllegalArgumentException as the constructor above does.
+     *
+     * The points are actually added in biased randomized insertion order
+     * (BRIO): in rounds of roughly doubling size, each sorted along a Hilbert
+     * curve, so that each point is found by a short walk from the triangle
+     * created last, without the grid insert uses. */
+    public ArrayTriangulation(int[] px, int[] py, int n, int x0, int y0,
+            int x1, int y1) {
+        this(x0, y0, x1, y1, n);
+        PointSet seen= new PointSet(n);
+        for (int i= 0; i < n; ++i)
+            if (seen.add(px[i], py[i])) addVertex(px[i], py[i]);
+
+        boolean omitted= false;
+        for (long key : brioOrder()) {
+            int p= (int) (key & ORDER_MASK) + SUPER;
+            int t= locate(xs[p], ys[p], last);
+            if (t < 0) {
+                incident[p]= -1;
+                omitted= true;
+            } else {
+                fillCavity(p, t);
+            }
+        }
+        if (omitted) dropOmitted();
+    }
+
+    /* Bits of a key of brioOrder: round, Hilbert index, then point. */
+    private static final int ORDER_BITS= 28;
+    private static final long ORDER_MASK= (1L << ORDER_BITS) - 1;
+    private static final int HILBERT_ORDER= 15;
+
+    /** Return the points added so far (vertices SUPER..nv-1) as keys in the
+     * order to insert them; point i has key & ORDER_MASK == i.
+     *
+     * Point i goes in the last round with probability 1/2, the one before
+     * with probability 1/4, and so on, decided by a hash of i so that the
+     * order depends only on the points. Within a round, points are sorted
+     * by their position along a Hilbert curve over their bounding box. */
+    private long[] brioOrder() {
+        int m= nv - SUPER;
+        if (m > ORDER_MASK)
+            throw new IllegalArgumentException("too many points: " + m);
+        int bx0= Integer.MAX_VALUE, by0= Integer.MAX_VALUE;
+        int bx1= Integer.MIN_VALUE, by1= Integer.MIN_VALUE;
+        for (int v= SUPER; v < nv; ++v) {
+            bx0= Math.min(bx0, xs[v]);
+            by0= Math.min(by0, ys[v]);
+            bx1= Math.max(bx1, xs[v]);
+            by1= Math.max(by1, ys[v]);
+        }
+        long cells= (1L << HILBERT_ORDER) - 1;
+        long w= Math.max(1L, (long) bx1 - bx0);
+        long h= Math.max(1L, (long) by1 - by0);
+        int rounds= 31 - Integer.numberOfLeadingZeros(Math.max(m, 1));
+        long[] keys= new long[m];
+        for (int i= 0; i < m; ++i) {
+            int hx= (int) (((long) xs[i + SUPER] - bx0) * cells / w);
+            int hy= (int) (((long) ys[i + SUPER] - by0) * cells / h);
+            int z= i * 0x9E3779B9;
+            z^= z >>> 16;
+            z*= 0x85EBCA6B;
+            z^= z >>> 13;
+            long round= rounds
+                - Math.min(Integer.numberOfTrailingZeros(z), rounds);
+            keys[i]= round << (2 * HILBERT_ORDER + ORDER_BITS)
+                | hilbert(hx, hy) << ORDER_BITS | i;
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /** Return the distance of cell (x, y) along a Hilbert curve through a
+     * grid of 2^HILBERT_ORDER x 2^HILBERT_ORDER cells. */
+    private static long hilbert(int x, int y) {
+        int n= 1 << HILBERT_ORDER;
+        long d= 0;
+        for (int s= n >>> 1; s > 0; s>>>= 1) {
+            int rx= (x & s) != 0 ? 1 : 0;
+            int ry= (y & s) != 0 ? 1 : 0;
+            d+= (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) { // rotate the quadrant
+                if (rx == 1) {
+                    x= n - 1 - x;
+                    y= n - 1 - y;
+                }
+                int t= x;
+                x= y;
+                y= t;
+            }
+        }
+        return d;
+    }
+
+    /** Remove the points with incident -1, which are in no triangle, and
+     * renumber the others, keeping their order. */
+    private void dropOmitted() {
+        int[] to= new int[nv];
+        for (int v= 0; v < SUPER; ++v)
+            to[v]= v;
+        int m= SUPER;
+        for (int v= SUPER; v < nv; ++v) {
+            if (incident[v] < 0) continue;
+            to[v]= m;
+            xs[m]= xs[v];
+            ys[m]= ys[v];
+            incident[m]= incident[v];
+            ++m;
+        }
+        nv= m;
+        for (int t= 0; t < nt; ++t)
+            if (tv[3 * t] >= 0)
+                for (int k= 0; k < 3; ++k)
+                    tv[3 * t + k]= to[tv[3 * t + k]];
+    }
+
+    /** Return the number of points added. */
+    @Override
+    public int size() {
+        return nv - SUPER;
+    }
+
+    /** Return the x-coordinate of point i, in order of addition. */
+    @Override
+    public int x(int i) {
+        return xs[i + SUPER];
+    }
+
+    /** Return the y-coordinate of point i, in order of addition. */
+    @Override
+    public int y(int i) {
+        return ys[i + SUPER];
+    }
+
+    /** Add point (x, y) and return true, unless it equals a point already
+     * added or lies outside the super-triangle; then return false. */
+    public boolean insert(int x, int y) {
+        int t= locate(x, y, hint(x, y));
+        if (t < 0) return false;
+        for (int k= 0; k < 3; ++k) {
+            int v= tv[3 * t + k];
+            if (xs[v] == x && ys[v] == y) return false;
+        }
+        int p= addVertex(x, y);
+        fillCavity(p, t);
+        gridAdd(p);
+        return true;
+    }
+
+    /** Return the triangles' edges between points (not the super-triangle's)
+     * as an array of pairs: edge k joins points e[2k] and e[2k+1]. */
+    @Override
+    public int[] edges() {
+        int[] e= new int[2 * (3 * size())];
+        int m= 0;
+        for (int t= 0; t < nt; ++t) {
+            if (tv[3 * t] < 0) continue;
+            for (int k= 0; k < 3; ++k) {
+                int o= nb[3 * t + k];
+                int a= tv[3 * t + (k + 1) % 3], b= tv[3 * t + (k + 2) % 3];
+                if ((o < 0 || t < o) && a >= SUPER && b >= SUPER) {
+                    if (m == e.length) e= Arrays.copyOf(e, 2 * m);
+                    e[m++]= a - SUPER;
+                    e[m++]= b - SUPER;
+                }
+            }
+        }
+        return Arrays.copyOf(e, m);
+    }
+
+    /** Return a live triangle near (x, y) to start a walk from. */
+    private int hint(int x, int y) {
+        int v= grid[cell(x, y)];
+        return v < 0 ? last : incident[v];
+    }
+
+    /** Return a triangle containing (x, y), boundary included, found by
+     * walking from triangle t, or -1 if (x, y) is outside the
+     * super-triangle.
+     *
+     * At each step the walk crosses an edge whose line separates the
+     * triangle from (x, y), trying the edges in a pseudo-random order and
+     * never going straight back; this always ends on a Delaunay
+     * triangulation. */
+    private int locate(int x, int y, int t) {
+        int prev= -1;
+        while (true) {
+            walkSeed^= walkSeed << 13;
+            walkSeed^= walkSeed >>> 17;
+            walkSeed^= walkSeed << 5;
+            int k0= (walkSeed >>> 1) % 3;
+            int next= t;
+            for (int i= 0; i < 3; ++i) {
+                int k= (k0 + i) % 3;
+                int o= nb[3 * t + k];
+                if (o >= 0 && o == prev) continue;
+                int a= tv[3 * t + (k + 1) % 3], b= tv[3 * t + (k + 2) % 3];
+                if (orient(a, b, x, y) < 0) {
+                    next= o;
+                    break;
+                }
+            }
+            if (next == t) return t;
+            if (next < 0) return -1;
+            prev= t;
+            t= next;
+        }
+    }
+
+    /** Replace the triangles whose circumcircles strictly contain new vertex
+     * p, starting from triangle t, which contains p, by triangles joining p
+     * to the boundary of the region they cover. */
+    private void fillCavity(int p, int t) {
+        // find the cavity and the edges bounding it
+        if (++stamp == 0) {
+            Arrays.fill(mark, 0);
+            stamp= 1;
+        }
+        int px= xs[p], py= ys[p];
+        int sp= 0, ne= 0;
+        mark[t]= stamp;
+        stack[sp++]= t;
+        while (sp > 0) {
+            int c= stack[--sp];
+            for (int k= 0; k < 3; ++k) {
+                int o= nb[3 * c + k];
+                if (o >= 0 && mark[o] == stamp) continue;
+                if (o >= 0 && inCircle(o, px, py) > 0) {
+                    mark[o]= stamp;
+                    if (sp == stack.length) stack= Arrays.copyOf(stack, 2 * sp);
+                    stack[sp++]= o;
+                } else {
+                    if (ne == ea.length) {
+                        ea= Arrays.copyOf(ea, 2 * ne);
+                        eb= Arrays.copyOf(eb, 2 * ne);
+                        eo= Arrays.copyOf(eo, 2 * ne);
+                    }
+                    ea[ne]= tv[3 * c + (k + 1) % 3];
+                    eb[ne]= tv[3 * c + (k + 2) % 3];
+                    eo[ne]= o;
+                    ++ne;
+                }
+            }
+            // c is done with: its slot is reused for the new triangles
+            tv[3 * c]= -1;
+            nb[3 * c]= free;
+            free= c;
+        }
+
+        // fan out from p; an edge of the super-triangle through p gets none
+        int first= -1;
+        for (int i= 0; i < ne; ++i) {
+            int a= ea[i], b= eb[i], o= eo[i];
+            if (o < 0 && orient(a, b, px, py) == 0) continue;
+            int n= newTriangle(a, b, p);
+            nb[3 * n + 1]= -1;
+            nb[3 * n + 2]= o;
+            if (o >= 0) {
+                // o's edge (b, a) now borders n instead of the cavity
+                for (int k= 0; k < 3; ++k) {
+                    if (tv[3 * o + (k + 1) % 3] == b
+                            && tv[3 * o + (k + 2) % 3] == a) {
+                        nb[3 * o + k]= n;
+                        break;
+                    }
+                }
+            }
+            link[a]= n;
+            incident[a]= n;
+            incident[b]= n;
+            incident[p]= n;
+            if (first < 0) first= n;
+        }
+
+        // link the new triangles to each other: the one starting at a,
+        // (a, b, p), borders the one starting at b, (b, c, p), along (b, p)
+        for (int i= 0; i < ne; ++i) {
+            int n= link[ea[i]];
+            if (n < 0) continue; // skipped: on the super-triangle's edge
+            int m= link[tv[3 * n + 1]];
+            nb[3 * n]= m;
+            if (m >= 0) nb[3 * m + 1]= n;
+        }
+        for (int i= 0; i < ne; ++i)
+            link[ea[i]]= -1;
+        last= first;
+    }
+
+    /** Return the slot of a new triangle (a, b, c). Its neighbors are
+     * unset. */
+    private int newTriangle(int a, int b, int c) {
+        int t;
+        if (free >= 0) {
+            t= free;
+            free= nb[3 * t];
+        } else {
+            if (nt == mark.length) {
+                tv= Arrays.copyOf(tv, 6 * nt);
+                nb= Arrays.copyOf(nb, 6 * nt);
+                mark= Arrays.copyOf(mark, 2 * nt);
+            }
+            t= nt++;
+        }
+        tv[3 * t]= a;
+        tv[3 * t + 1]= b;
+        tv[3 * t + 2]= c;
+        return t;
+    }
+
+    /** Add vertex (x, y) and return its index. */
+    private int addVertex(int x, int y) {
+        if (nv == xs.length) {
+            xs= Arrays.copyOf(xs, 2 * nv);
+            ys= Arrays.copyOf(ys, 2 * nv);
+            incident= Arrays.copyOf(incident, 2 * nv);
+            link= Arrays.copyOf(link, 2 * nv);
+            Arrays.fill(link, nv, 2 * nv, -1);
+        }
+        xs[nv]= x;
+        ys[nv]= y;
+        return nv++;
+    }
+
+    /** Record vertex v as the latest in its grid cell, first making the grid
+     * finer if there are more than 4 points per cell, so that about 2 are. */
+    private void gridAdd(int v) {
+        if (4 * side * side < size()) {
+            resizeGrid((int) Math.ceil(Math.sqrt(size() / 2.0)));
+            return; // resizeGrid recorded every vertex
+        }
+        grid[cell(xs[v], ys[v])]= v;
+    }
+
+    /** Replace the grid by one of s x s cells holding every vertex. Each
+     * empty cell gets the vertex of the closest nonempty cell before it in
+     * row order, or after it if there is none before. */
+    private void resizeGrid(int s) {
+        side= s;
+        grid= new int[s * s];
+        Arrays.fill(grid, -1);
+        for (int v= SUPER; v < nv; ++v)
+            grid[cell(xs[v], ys[v])]= v;
+        for (int c= 1; c < grid.length; ++c)
+            if (grid[c] < 0) grid[c]= grid[c - 1];
+        for (int c= grid.length - 2; c >= 0; --c)
+            if (grid[c] < 0) grid[c]= grid[c + 1];
+    }
+
+    /** Return the grid cell of (x, y), clamped to the grid. */
+    private int cell(int x, int y) {
+        long i= ((long) x - minX) * side / width;
+        long j= ((long) y - minY) * side / height;
+        i= i < 0 ? 0 : i >= side ? side - 1 : i;
+        j= j < 0 ? 0 : j >= side ? side - 1 : j;
+        return (int) j * side + (int) i;
+    }
+
+    /** Throw an IllegalArgumentException if the axis-aligned rectangle with
+     * bottom-left corner (x0, y0) and top-right corner (x1, y1) is empty or
+     * its super-triangle's corners do not have int coordinates. */
+    static void checkRectangle(int x0, int y0, int x1, int y1) {
+        if (x1 < x0 || y1 < y0)
+            throw new IllegalArgumentException("empty rectangle");
+        long outer= Math.max((long) x1 - x0, (long) y1 - y0);
+        if (Math.min(x0, y0) - outer < Integer.MIN_VALUE
+                || Math.max(x0, y0) + 3 * outer > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("rectangle too large: its "
+                + "super-triangle does not have int coordinates");
+    }
+
+    /** Return 1 if (x, y) is to the left of the line from vertex a to vertex
+     * b, -1 if it is to the right, and 0 if it is on the line. */
+    private int orient(int a, int b, int x, int y) {
+        return Predicates.orient(xs[a], ys[a], xs[b], ys[b], x, y);
+    }
+
+    /** Return 1 if (x, y) is strictly inside the circumcircle of triangle t,
+     * -1 if it is strictly outside, and 0 if it is on it. */
+    private int inCircle(int t, int x, int y) {
+        int a= tv[3 * t], b= tv[3 * t + 1], c= tv[3 * t + 2];
+        return Predicates.inCircle(xs[a], ys[a], xs[b], ys[b], xs[c], ys[c],
+            x, y);
+    }
+}
@@ -1,26 +1,91 @@
 package generation;
 
 import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Random;
 import java.util.Set;
 
 /** An instance creates a Delaunay triangulation represented by immutable vertex
- * and edge sets. */
+ * and edge sets.
+ *
+ * The triangulation is computed by one of several engines (see Engine). All
+ * give the same vertices, in the order they were added, and for points in
+ * general position the same edges. */
 public class DelaunayTriangulation {
-    /* The set of Points representing vertices in this triangulation */
+    /** The algorithms that can compute a triangulation. */
+    public static enum Engine {
+        /** Incremental insertion into linked Triangle objects, with a history
+         * DAG for point location (see Triangle). */
+        LEGACY,
+        /** Incremental insertion into flat int arrays (see
+         * ArrayTriangulation). Much faster and smaller for large inputs. */
+        ARRAY,
+        /** As ARRAY, but with all points given at once and inserted along a
+         * Hilbert curve in randomized rounds, each located by walking from
+         * the triangle created last. Faster still for large inputs. */
+        BRIO,
+        /** Divide and conquer on all cores, splitting the points at their
+         * x-median and merging the halves (see ParallelTriangulation). The
+         * result does not depend on the number of threads. */
+        PARALLEL
+    }
+
+    /* The set of Points representing vertices in this triangulation, in the
+     * order they were added. For the ARRAY, BRIO and PARALLEL engines, null
+     * until first needed. */
     private Set<Point> vertices;
 
-    /* The set of UEdges representing the final triangulation */
+    /* The set of UEdges representing the final triangulation. For the ARRAY
+     * BRIO and PARALLEL engines, null until first needed. */
     private Set<UEdge> edges;
 
+    /* For the ARRAY, BRIO and PARALLEL engines, the triangulation and its
+     * edges (see IntTriangulation.edges); otherwise null. */
+    private IntTriangulation array;
+    private int[] arrayEdges;
+
     /** Constructor: a Delaunay Triangulation with n Points, placed using RNG r,
      * where the Points are bound by a rectangle with lower-left point (0, 0)
      * parallel to the x- and y-axes with dimensions w x h. */
     public DelaunayTriangulation(int n, Random r, int w, int h) {
+        this(n, r, w, h, Engine.LEGACY);
+    }
+
+    /** Constructor: as the one above, but computed by engine e. Every engine
+     * draws the same Points from r. */
+    public DelaunayTriangulation(int n, Random r, int w, int h, Engine e) {
+        if (e == Engine.ARRAY) {
+            ArrayTriangulation a= new ArrayTriangulation(0, 0, w, h, n);
+            while (a.size() < n)
+                a.insert(r.nextInt(w + 1), r.nextInt(h + 1));
+            array= a;
+            arrayEdges= a.edges();
+            return;
+        }
+        if (e == Engine.BRIO || e == Engine.PARALLEL) {
+            // draw the distinct Points first, as the other engines do
+            PointSet seen= new PointSet(n);
+            int[] xs= new int[n], ys= new int[n];
+            for (int i= 0; i < n;) {
+                int x= r.nextInt(w + 1), y= r.nextInt(h + 1);
+                if (seen.add(x, y)) {
+                    xs[i]= x;
+                    ys[i]= y;
+                    ++i;
+                }
+            }
+            array= e == Engine.BRIO
+                ? new ArrayTriangulation(xs, ys, n, 0, 0, w, h)
+                : new ParallelTriangulation(xs, ys, n, 0, 0, w, h);
+            arrayEdges= array.edges();
+            return;
+        }
         Iterator<Point> iter= new Iterator<Point>() {
             @Override
             public boolean hasNext() {
@@ -57,16 +122,54 @@ public class DelaunayTriangulation {
 
     /** Constructor: a Delaunay triangulation built from Points in iterator pts
      * bound in the axis-aligned rectangle with bottom-left coordinate bl and
-     * top-right coordinate tr. Points outside of this area are omitted. */
+     * top-right coordinate tr. Points outside of this area are omitted, and
+     * so are Points equal to earlier ones. */
     public DelaunayTriangulation(Iterator<Point> pts, Point bl, Point tr) {
-        triangulate(pts, bl, tr);
+        this(pts, bl, tr, Engine.LEGACY);
+    }
+
+    /** Constructor: as the one above, but computed by engine e. */
+    public DelaunayTriangulation(Iterator<Point> pts, Point bl, Point tr,
+            Engine e) {
+        // filter the Points here, so that every engine gets the same input
+        ArrayList<Point> kept= new ArrayList<Point>();
+        PointSet seen= new PointSet(16);
+        while (pts.hasNext()) {
+            Point p= pts.next();
+            if (p.x >= bl.x && p.x <= tr.x && p.y >= bl.y && p.y <= tr.y
+                    && seen.add(p.x, p.y))
+                kept.add(p);
+        }
+        int n= kept.size();
+
+        if (e == Engine.LEGACY) {
+            triangulate(kept.iterator(), bl, tr);
+            return;
+        }
+        int[] xs= new int[n], ys= new int[n];
+        for (int i= 0; i < n; ++i) {
+            xs[i]= kept.get(i).x;
+            ys[i]= kept.get(i).y;
+        }
+        if (e == Engine.ARRAY) {
+            ArrayTriangulation a=
+                new ArrayTriangulation(bl.x, bl.y, tr.x, tr.y, n);
+            for (int i= 0; i < n; ++i)
+                a.insert(xs[i], ys[i]);
+            array= a;
+        } else {
+            array= e == Engine.BRIO
+                ? new ArrayTriangulation(xs, ys, n, bl.x, bl.y, tr.x, tr.y)
+                : new ParallelTriangulation(xs, ys, n, bl.x, bl.y, tr.x, tr.y);
+        }
+        arrayEdges= array.edges();
     }
 
     /** Uses iterator pts to make a Delaunay triangulation within the
      * axis-aligned rectangle with bottom-left coordinate bl and top-right
      * coordinate tr. Points outside this area are ommited. */
     private void triangulate(Iterator<Point> pts, Point bl, Point tr) {
-        vertices= new HashSet<Point>();
+        vertices= new LinkedHashSet<Point>();
 
         /* Triangulation set: set of all final Triangles */
         HashSet<Triangle> triangles= new HashSet<Triangle>();
@@ -97,16 +200,42 @@ public class DelaunayTriangulation {
             (UEdge e) -> e.contains(p1) || e.contains(p2) || e.contains(p3));
     }
 
-    /** Returns this triangulation's immutable vertex set. */
-    public Set<Point> getVertices() {
+    /** Returns this triangulation's immutable vertex set, which iterates over
+     * the vertices in the order they were added. */
+    public synchronized Set<Point> getVertices() {
+        if (vertices == null) makeSets();
         return Collections.unmodifiableSet(vertices);
     }
 
     /** Returns this triangulation's immutable edge set. */
-    public Set<UEdge> getEdges() {
+    public synchronized Set<UEdge> getEdges() {
+        if (edges == null) makeSets();
         return Collections.unmodifiableSet(edges);
     }
 
+    /** Returns the number of vertices, without making the vertex set. */
+    public int getVertexCount() {
+        return array != null ? array.size() : vertices.size();
+    }
+
+    /** Returns the number of edges, without making the edge set. */
+    public int getEdgeCount() {
+        return array != null ? arrayEdges.length / 2 : edges.size();
+    }
+
+    /** Make the vertex and edge sets from array and arrayEdges. The vertices
+     * are in order of addition, as triangulate keeps them, so the vertex set
+     * iterates in the same order for every engine. */
+    private void makeSets() {
+        Point[] ps= new Point[array.size()];
+        for (int i= 0; i < ps.length; ++i)
+            ps[i]= new Point(array.x(i), array.y(i));
+        vertices= new LinkedHashSet<Point>(Arrays.asList(ps));
+        edges= new HashSet<UEdge>();
+        for (int k= 0; k < arrayEdges.length; k+= 2)
+            edges.add(new UEdge(ps[arrayEdges[k]], ps[arrayEdges[k + 1]]));
+    }
+
     /** Returns a set of all unique edges in the triangulation set ts. Edges are
      * represented as UEdges to avoid redundancy. */
     private static Set<UEdge> allUndirectedEdges(HashSet<Triangle> ts) {
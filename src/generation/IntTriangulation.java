@@ -0,0 +1,19 @@
+package generation;
+
+/** A Delaunay triangulation of points with int coordinates, kept without an
+ * object per point or edge, as computed by DelaunayTriangulation's faster
+ * engines. */
+interface IntTriangulation {
+    /** Return the number of points triangulated. */
+    int size();
+
+    /** Return the x-coordinate of point i, in order of addition. */
+    int x(int i);
+
+    /** Return the y-coordinate of point i, in order of addition. */
+    int y(int i);
+
+    /** Return the triangulation's edges as an array of pairs: edge k joins
+     * points e[2k] and e[2k+1]. */
+    int[] edges();
+}
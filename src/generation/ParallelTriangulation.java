@@ -0,0 +1,364 @@
+package generation;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/** An instance is a Delaunay triangulation of points with int coordinates,
+ * computed by divide and conquer (Guibas and Stolfi) on several threads.
+ * It triangulates the same points as ArrayTriangulation: together with the
+ * same super-triangle, a point equal to an earlier one or outside the
+ * super-triangle being omitted. Since the super-triangle's vertices are
+ * triangulated as ordinary points, the result is the same as that of the
+ * other engines for points in general position.
+ *
+ * The points are sorted by x, then y. A range of them is split at its median
+ * into two halves, which are triangulated separately, in parallel on the
+ * common ForkJoinPool when they are large, and then merged by zipping up the
+ * seam between them. Each range has its own edge slots, so the result never
+ * depends on how the work was scheduled.
+ *
+ * The triangulation is kept in flat arrays as a quad-edge structure. The
+ * predicates are exact (see Predicates). */
+public class ParallelTriangulation implements IntTriangulation {
+    /* Ranges of fewer points than this are triangulated on one thread. */
+    private static final int PARALLEL_THRESHOLD= 1 << 13;
+
+    /* The vertices, sorted by x, then y: vertex v is (xs[v], ys[v]) and is
+     * point pt[v], or the super-triangle's if pt[v] == -1. */
+    private final int[] xs, ys, pt;
+
+    /* The points, in order of addition: point i is (px[i], py[i]). */
+    private final int[] px, py;
+
+    /* Quad q, for q in 0..3*xs.length-1, holds the directed edge e = 4q, its
+     * dual 4q+1, its reverse 4q+2 and the dual's reverse 4q+3. onext[e] is
+     * the next edge counterclockwise around e's origin (around e's left face
+     * for a dual edge), and org[e/2] is the origin of primal edge e, or -1
+     * in both if quad q is unused. */
+    private final int[] onext, org;
+
+    /** Constructor: a triangulation of points 0..n-1 of (px, py), in the
+     * axis-aligned rectangle with bottom-left corner (x0, y0) and top-right
+     * corner (x1, y1), as ArrayTriangulation would compute if they were added
+     * in that order. Throws an IllegalArgumentException if the rectangle is
+     * empty or so large that its super-triangle's corners do not have int
+     * coordinates. */
+    public ParallelTriangulation(int[] px, int[] py, int n, int x0, int y0,
+            int x1, int y1) {
+        ArrayTriangulation.checkRectangle(x0, y0, x1, y1);
+
+        // the same super-triangle as the other engines, and the points in it
+        int outer= Math.max(x1 - x0, y1 - y0);
+        int[] sx= {-outer + x0, 3 * outer + x0, -outer + x0};
+        int[] sy= {-outer + y0, -outer + y0, 3 * outer + y0};
+        PointSet seen= new PointSet(n + 3);
+        for (int k= 0; k < 3; ++k)
+            seen.add(sx[k], sy[k]);
+        int[] ax= new int[n], ay= new int[n];
+        int m= 0;
+        for (int i= 0; i < n; ++i) {
+            int x= px[i], y= py[i];
+            if (x < sx[0] || y < sy[0] || (long) x - x0 + y - y0 > 2L * outer)
+                continue;
+            if (!seen.add(x, y)) continue;
+            ax[m]= x;
+            ay[m]= y;
+            ++m;
+        }
+        this.px= Arrays.copyOf(ax, m);
+        this.py= Arrays.copyOf(ay, m);
+
+        // sort the points and the super-triangle's vertices together
+        int nv= m + 3;
+        long[] keys= new long[nv];
+        for (int i= 0; i < m; ++i)
+            keys[i]= key(ax[i], ay[i]);
+        for (int k= 0; k < 3; ++k)
+            keys[m + k]= key(sx[k], sy[k]);
+        long[] sorted= keys.clone();
+        Arrays.parallelSort(sorted);
+        xs= new int[nv];
+        ys= new int[nv];
+        pt= new int[nv];
+        for (int i= 0; i < nv; ++i) {
+            int v= Arrays.binarySearch(sorted, keys[i]);
+            xs[v]= i < m ? ax[i] : sx[i - m];
+            ys[v]= i < m ? ay[i] : sy[i - m];
+            pt[v]= i < m ? i : -1;
+        }
+
+        onext= new int[12 * nv];
+        org= new int[6 * nv];
+        Arrays.fill(org, -1);
+        new Part(0, nv).invoke();
+    }
+
+    /** Return a long that orders points by x, then y. */
+    private static long key(int x, int y) {
+        return (long) x << 32 | (y ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+    }
+
+    /** Return the number of points triangulated. */
+    @Override
+    public int size() {
+        return px.length;
+    }
+
+    /** Return the x-coordinate of point i, in order of addition. */
+    @Override
+    public int x(int i) {
+        return px[i];
+    }
+
+    /** Return the y-coordinate of point i, in order of addition. */
+    @Override
+    public int y(int i) {
+        return py[i];
+    }
+
+    /** Return the triangulation's edges between points (not the
+     * super-triangle's) as an array of pairs: edge k joins points e[2k] and
+     * e[2k+1]. */
+    @Override
+    public int[] edges() {
+        int[] e= new int[2 * (3 * size())];
+        int m= 0;
+        for (int q= 0; 2 * q < org.length; ++q) {
+            if (org[2 * q] < 0) continue;
+            int a= pt[org[2 * q]], b= pt[org[2 * q + 1]];
+            if (a < 0 || b < 0) continue;
+            if (m == e.length) e= Arrays.copyOf(e, 2 * m);
+            e[m++]= a;
+            e[m++]= b;
+        }
+        return Arrays.copyOf(e, m);
+    }
+
+    /** An instance triangulates vertices lo..hi-1, using quads 3*lo..3*hi-1
+     * only, and leaves in ldo the counterclockwise convex hull edge out of
+     * the leftmost vertex and in rdo the clockwise one out of the rightmost.
+     * Quads are taken from free, then from bump up to end. */
+    @SuppressWarnings("serial")
+    private final class Part extends RecursiveAction {
+        private final int lo, hi;
+        private int ldo, rdo;
+        private int[] free= new int[16];
+        private int nfree;
+        private int bump, end;
+
+        /** Constructor: an instance for vertices lo..hi-1. Precondition:
+         * hi - lo >= 2. */
+        Part(int lo, int hi) {
+            this.lo= lo;
+            this.hi= hi;
+            bump= 3 * lo;
+            end= 3 * hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo < PARALLEL_THRESHOLD) {
+                int[] hull= triangulate(lo, hi);
+                ldo= hull[0];
+                rdo= hull[1];
+                return;
+            }
+            int mid= (lo + hi) >>> 1;
+            Part left= new Part(lo, mid), right= new Part(mid, hi);
+            invokeAll(left, right);
+            // take over the quads of both halves that are still unused
+            for (int q= left.bump; q < left.end; ++q)
+                release(q);
+            for (int i= 0; i < left.nfree; ++i)
+                release(left.free[i]);
+            for (int i= 0; i < right.nfree; ++i)
+                release(right.free[i]);
+            bump= right.bump;
+            int[] hull= merge(left.ldo, left.rdo, right.ldo, right.rdo);
+            ldo= hull[0];
+            rdo= hull[1];
+        }
+
+        /** Triangulate vertices a..b-1 on this thread and return {ldo, rdo}
+         * for them. Precondition: b - a >= 2. */
+        private int[] triangulate(int a, int b) {
+            if (b - a == 2) {
+                int e= makeEdge(a, a + 1);
+                return new int[] {e, sym(e)};
+            }
+            if (b - a == 3) {
+                int e1= makeEdge(a, a + 1), e2= makeEdge(a + 1, a + 2);
+                splice(sym(e1), e2);
+                int o= ccw(a, a + 1, a + 2);
+                if (o > 0) {
+                    connect(e2, e1);
+                    return new int[] {e1, sym(e2)};
+                }
+                if (o < 0) {
+                    int e3= connect(e2, e1);
+                    return new int[] {sym(e3), e3};
+                }
+                return new int[] {e1, sym(e2)}; // collinear
+            }
+            int mid= (a + b) >>> 1;
+            int[] l= triangulate(a, mid), r= triangulate(mid, b);
+            return merge(l[0], l[1], r[0], r[1]);
+        }
+
+        /** Merge the triangulations of two adjacent ranges, the left one
+         * with hull edges ldo and ldi and the right one with rdi and rdo,
+         * and return {ldo, rdo} for the union. */
+        private int[] merge(int ldo, int ldi, int rdi, int rdo) {
+            // find the lower common tangent of the two hulls
+            while (true) {
+                if (ccw(org(rdi), org(ldi), dest(ldi)) > 0) ldi= lnext(ldi);
+                else if (ccw(org(ldi), dest(rdi), org(rdi)) > 0)
+                    rdi= onext(sym(rdi));
+                else break;
+            }
+            int basel= connect(sym(rdi), ldi);
+            if (org(ldi) == org(ldo)) ldo= sym(basel);
+            if (org(rdi) == org(rdo)) rdo= basel;
+
+            // zip up the seam from the bottom, one triangle at a time
+            while (true) {
+                int lcand= onext(sym(basel));
+                if (above(lcand, basel)) {
+                    while (inCircle(dest(basel), org(basel), dest(lcand),
+                            dest(onext(lcand))) > 0) {
+                        int t= onext(lcand);
+                        deleteEdge(lcand);
+                        lcand= t;
+                    }
+                }
+                int rcand= oprev(basel);
+                if (above(rcand, basel)) {
+                    while (inCircle(dest(basel), org(basel), dest(rcand),
+                            dest(oprev(rcand))) > 0) {
+                        int t= oprev(rcand);
+                        deleteEdge(rcand);
+                        rcand= t;
+                    }
+                }
+                boolean lvalid= above(lcand, basel);
+                boolean rvalid= above(rcand, basel);
+                if (!lvalid && !rvalid) break;
+                if (!lvalid || rvalid && inCircle(dest(lcand), org(lcand),
+                        org(rcand), dest(rcand)) > 0) {
+                    basel= connect(rcand, sym(basel));
+                } else {
+                    basel= connect(sym(basel), sym(lcand));
+                }
+            }
+            return new int[] {ldo, rdo};
+        }
+
+        /** Return true iff the destination of e is strictly to the right of
+         * basel, seen from basel's origin. */
+        private boolean above(int e, int basel) {
+            return ccw(dest(e), dest(basel), org(basel)) > 0;
+        }
+
+        /** Return a new edge from vertex a to vertex b, alone in its
+         * rings. */
+        private int makeEdge(int a, int b) {
+            int q;
+            if (nfree > 0) q= free[--nfree];
+            else if (bump < end) q= bump++;
+            else throw new IllegalStateException("out of quads");
+            int e= 4 * q;
+            onext[e]= e;
+            onext[e + 1]= e + 3;
+            onext[e + 2]= e + 2;
+            onext[e + 3]= e + 1;
+            org[2 * q]= a;
+            org[2 * q + 1]= b;
+            return e;
+        }
+
+        /** Make quad q available to makeEdge again. */
+        private void release(int q) {
+            if (nfree == free.length) free= Arrays.copyOf(free, 2 * nfree);
+            free[nfree++]= q;
+        }
+
+        /** Return a new edge from the destination of a to the origin of b,
+         * so that a, the new edge and b share a left face. */
+        private int connect(int a, int b) {
+            int e= makeEdge(dest(a), org(b));
+            splice(e, lnext(a));
+            splice(sym(e), b);
+            return e;
+        }
+
+        /** Remove edge e from the triangulation. */
+        private void deleteEdge(int e) {
+            splice(e, oprev(e));
+            splice(sym(e), oprev(sym(e)));
+            int q= e >>> 2;
+            org[2 * q]= org[2 * q + 1]= -1;
+            release(q);
+        }
+    }
+
+    /** Join or separate the origin rings of edges a and b, and the left-face
+     * rings of their duals (Guibas and Stolfi's splice). */
+    private void splice(int a, int b) {
+        int alpha= rot(onext[a]), beta= rot(onext[b]);
+        int t= onext[a];
+        onext[a]= onext[b];
+        onext[b]= t;
+        t= onext[alpha];
+        onext[alpha]= onext[beta];
+        onext[beta]= t;
+    }
+
+    /** Return the dual of edge e, rotated counterclockwise. */
+    private static int rot(int e) {
+        return (e & ~3) | ((e + 1) & 3);
+    }
+
+    /** Return edge e reversed. */
+    private static int sym(int e) {
+        return e ^ 2;
+    }
+
+    /** Return the next edge counterclockwise around e's origin. */
+    private int onext(int e) {
+        return onext[e];
+    }
+
+    /** Return the next edge clockwise around e's origin. */
+    private int oprev(int e) {
+        return rot(onext[rot(e)]);
+    }
+
+    /** Return the next edge counterclockwise around e's left face. */
+    private int lnext(int e) {
+        return rot(onext[(e & ~3) | ((e + 3) & 3)]);
+    }
+
+    /** Return the origin of primal edge e. */
+    private int org(int e) {
+        return org[e >>> 1];
+    }
+
+    /** Return the destination of primal edge e. */
+    private int dest(int e) {
+        return org[(e ^ 2) >>> 1];
+    }
+
+    /** Return 1 if vertices a, b, c are in counterclockwise order, -1 if
+     * clockwise, and 0 if they are collinear. */
+    private int ccw(int a, int b, int c) {
+        return Predicates.orient(xs[a], ys[a], xs[b], ys[b], xs[c], ys[c]);
+    }
+
+    /** Return 1 if vertex d is strictly inside the circle through vertices
+     * a, b, c, which are in counterclockwise order, -1 if it is strictly
+     * outside, and 0 if it is on it. */
+    private int inCircle(int a, int b, int c, int d) {
+        return Predicates.inCircle(xs[a], ys[a], xs[b], ys[b], xs[c], ys[c],
+            xs[d], ys[d]);
+    }
+}
@@ -0,0 +1,60 @@
+package generation;
+
+import java.util.Arrays;
+
+/** An instance is a set of points with int coordinates, kept in an
+ * open-addressing hash table of longs, with no object per point. */
+class PointSet {
+    /* Marks an empty slot; no point packs to it (see pack). */
+    private static final long EMPTY= Long.MIN_VALUE;
+
+    /* The packed points, at slots found by linear probing; the length is a
+     * power of 2 at least twice size. */
+    private long[] table;
+    private int size;
+
+    /** Constructor: an empty set with room for about n points. */
+    PointSet(int n) {
+        table= new long[Integer.highestOneBit(Math.max(2 * n, 8)) << 1];
+        Arrays.fill(table, EMPTY);
+    }
+
+    /** Return the number of points in this set. */
+    int size() {
+        return size;
+    }
+
+    /** Add (x, y) to this set. Return true iff it was not already in it. */
+    boolean add(int x, int y) {
+        if (2 * (size + 1) > table.length) grow();
+        if (!put(table, pack(x, y))) return false;
+        ++size;
+        return true;
+    }
+
+    /** Put packed point k in table t; return false if it was there. */
+    private static boolean put(long[] t, long k) {
+        int mask= t.length - 1;
+        int i= (int) ((k * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (t[i] != EMPTY) {
+            if (t[i] == k) return false;
+            i= (i + 1) & mask;
+        }
+        t[i]= k;
+        return true;
+    }
+
+    /** Double the length of the table. */
+    private void grow() {
+        long[] t= new long[2 * table.length];
+        Arrays.fill(t, EMPTY);
+        for (long k : table)
+            if (k != EMPTY) put(t, k);
+        table= t;
+    }
+
+    /** Return (x, y) packed into a long other than EMPTY. */
+    private static long pack(int x, int y) {
+        return ((long) x << 32 | (y & 0xFFFFFFFFL)) ^ 1L;
+    }
+}
@@ -0,0 +1,135 @@
+package generation;
+
+import java.awt.Point;
+import java.math.BigInteger;
+
+/** Exact geometric predicates on points with int coordinates.
+ *
+ * Each predicate is first evaluated in double arithmetic together with a
+ * bound on its rounding error (Shewchuk's static filters). Only if the result
+ * is too close to 0 for its sign to be trusted is it evaluated again exactly,
+ * in long arithmetic when the coordinates are close enough together and with
+ * BigIntegers otherwise. So the answer is always exact, at little more than
+ * the cost of the double evaluation for points in general position. */
+public final class Predicates {
+    /* Half the distance between 1 and the next larger double. */
+    private static final double EPSILON= Math.ulp(1.0) / 2;
+
+    /* Relative error bounds of the double evaluations of orient and
+     * inCircle (Shewchuk's ccwerrboundA and iccerrboundA). */
+    private static final double ORIENT_BOUND= (3 + 16 * EPSILON) * EPSILON;
+    private static final double IN_CIRCLE_BOUND= (10 + 96 * EPSILON) * EPSILON;
+
+    /* The largest coordinate differences for which the exact evaluations fit
+     * in a long: 2 * ORIENT_LIMIT^2 and 12 * IN_CIRCLE_LIMIT^4 are less than
+     * 2^63. */
+    private static final long ORIENT_LIMIT= 1L << 31;
+    private static final long IN_CIRCLE_LIMIT= 29_000;
+
+    /** Cannot be instantiated. */
+    private Predicates() {}
+
+    /** Return 1 if (ax, ay), (bx, by), (cx, cy) are in counterclockwise
+     * order, -1 if they are in clockwise order, and 0 if they are
+     * collinear. */
+    public static int orient(int ax, int ay, int bx, int by, int cx, int cy) {
+        double adx= (double) ax - cx, ady= (double) ay - cy;
+        double bdx= (double) bx - cx, bdy= (double) by - cy;
+        double left= adx * bdy, right= ady * bdx;
+        double det= left - right;
+        double bound= ORIENT_BOUND * (Math.abs(left) + Math.abs(right));
+        if (det > bound) return 1;
+        if (-det > bound) return -1;
+        return orientExact(ax, ay, bx, by, cx, cy);
+    }
+
+    /** Return orient(a.x, a.y, b.x, b.y, c.x, c.y). */
+    public static int orient(Point a, Point b, Point c) {
+        return orient(a.x, a.y, b.x, b.y, c.x, c.y);
+    }
+
+    /** Return orient(...), computed exactly. */
+    private static int orientExact(int ax, int ay, int bx, int by, int cx,
+            int cy) {
+        long adx= (long) ax - cx, ady= (long) ay - cy;
+        long bdx= (long) bx - cx, bdy= (long) by - cy;
+        if (max(adx, ady, bdx, bdy, 0, 0) < ORIENT_LIMIT)
+            return Long.signum(adx * bdy - ady * bdx);
+        return big(adx).multiply(big(bdy))
+            .subtract(big(ady).multiply(big(bdx))).signum();
+    }
+
+    /** Return 1 if (dx, dy) is strictly inside the circle through
+     * (ax, ay), (bx, by), (cx, cy), -1 if it is strictly outside, and 0 if
+     * it is on it. Precondition: the first three points are in
+     * counterclockwise order; if they are in clockwise order, the sign of the
+     * result is reversed. */
+    public static int inCircle(int ax, int ay, int bx, int by, int cx,
+            int cy, int dx, int dy) {
+        double adx= (double) ax - dx, ady= (double) ay - dy;
+        double bdx= (double) bx - dx, bdy= (double) by - dy;
+        double cdx= (double) cx - dx, cdy= (double) cy - dy;
+
+        double bdxcdy= bdx * cdy, cdxbdy= cdx * bdy;
+        double alift= adx * adx + ady * ady;
+        double cdxady= cdx * ady, adxcdy= adx * cdy;
+        double blift= bdx * bdx + bdy * bdy;
+        double adxbdy= adx * bdy, bdxady= bdx * ady;
+        double clift= cdx * cdx + cdy * cdy;
+
+        double det= alift * (bdxcdy - cdxbdy) + blift * (cdxady - adxcdy)
+            + clift * (adxbdy - bdxady);
+        double permanent= (Math.abs(bdxcdy) + Math.abs(cdxbdy)) * alift
+            + (Math.abs(cdxady) + Math.abs(adxcdy)) * blift
+            + (Math.abs(adxbdy) + Math.abs(bdxady)) * clift;
+        double bound= IN_CIRCLE_BOUND * permanent;
+        if (det > bound) return 1;
+        if (-det > bound) return -1;
+        return inCircleExact(ax, ay, bx, by, cx, cy, dx, dy);
+    }
+
+    /** Return inCircle(a.x, a.y, b.x, b.y, c.x, c.y, d.x, d.y). */
+    public static int inCircle(Point a, Point b, Point c, Point d) {
+        return inCircle(a.x, a.y, b.x, b.y, c.x, c.y, d.x, d.y);
+    }
+
+    /** Return inCircle(...), computed exactly. */
+    private static int inCircleExact(int ax, int ay, int bx, int by, int cx,
+            int cy, int dx, int dy) {
+        long adx= (long) ax - dx, ady= (long) ay - dy;
+        long bdx= (long) bx - dx, bdy= (long) by - dy;
+        long cdx= (long) cx - dx, cdy= (long) cy - dy;
+        if (max(adx, ady, bdx, bdy, cdx, cdy) < IN_CIRCLE_LIMIT) {
+            return Long.signum(
+                (adx * adx + ady * ady) * (bdx * cdy - cdx * bdy)
+                + (bdx * bdx + bdy * bdy) * (cdx * ady - adx * cdy)
+                + (cdx * cdx + cdy * cdy) * (adx * bdy - bdx * ady));
+        }
+        BigInteger a= lift(adx, ady), b= lift(bdx, bdy), c= lift(cdx, cdy);
+        return a.multiply(cross(bdx, bdy, cdx, cdy))
+            .add(b.multiply(cross(cdx, cdy, adx, ady)))
+            .add(c.multiply(cross(adx, ady, bdx, bdy))).signum();
+    }
+
+    /** Return x^2 + y^2. */
+    private static BigInteger lift(long x, long y) {
+        return big(x).multiply(big(x)).add(big(y).multiply(big(y)));
+    }
+
+    /** Return ux * vy - uy * vx. */
+    private static BigInteger cross(long ux, long uy, long vx, long vy) {
+        return big(ux).multiply(big(vy)).subtract(big(uy).multiply(big(vx)));
+    }
+
+    /** Return v as a BigInteger. */
+    private static BigInteger big(long v) {
+        return BigInteger.valueOf(v);
+    }
+
+    /** Return the largest absolute value of a..f. */
+    private static long max(long a, long b, long c, long d, long e, long f) {
+        return Math.max(Math.max(Math.max(Math.abs(a), Math.abs(b)),
+            Math.max(Math.abs(c), Math.abs(d))),
+            Math.max(Math.abs(e), Math.abs(f)));
+    }
+}
@@ -5,7 +5,7 @@ import java.awt.Point;
 import java.util.LinkedList;
 import java.util.Set;
 
-/** Helper class used for Delaunay Triangulation. Uses Barycentric coordinates
+/** Helper class used for Delaunay Triangulation. Uses exact orientation tests
  * to determine if a point is inside a given triangle and then tracks any
  * sub-triangles created inside, as well as Triangles sharing an edge with this
  * Triangle.
@@ -24,9 +24,9 @@ public class Triangle {
      * if no events have occurred for this Triangle. */
     private HistoryEvent event;
 
-    /* Determinant from Barycentric coordinate conversion used to find if a
-     * point is inside of this Triangle */
-    private double detT;
+    /* The orientation of the vertices: 1 if counterclockwise, -1 if
+     * clockwise, 0 if collinear (see Predicates.orient) */
+    private int orientation;
 
     /** Constructor: a Triangle with three vertices p1, p2, and p3, no
      * sub-Triangles and no shared-edge Triangles. */
@@ -34,8 +34,7 @@ public class Triangle {
         vs[0]= p1;
         vs[1]= p2;
         vs[2]= p3;
-        detT= (vs[1].y - vs[2].y) * (vs[0].x - vs[2].x)
-            + (vs[2].x - vs[1].x) * (vs[0].y - vs[2].y);
+        orientation= Predicates.orient(p1, p2, p3);
     }
 
     /** If this Triangle contains p, adds p to this Triangle, splitting the
@@ -250,15 +249,15 @@ public class Triangle {
         return Math.acos(dot / mag);
     }
 
-    /** Returns a PointLocation for p relative to this Triangle. */
+    /** Returns a PointLocation for p relative to this Triangle. A degenerate
+     * Triangle, with collinear vertices, contains no Points. */
     public PointLocation pointLocation(Point p) {
-        double l1= ((vs[1].y - vs[2].y) * (p.x - vs[2].x)
-                  + (vs[2].x - vs[1].x) * (p.y - vs[2].y)) / detT;
-        double l2= ((vs[2].y - vs[0].y) * (p.x - vs[2].x)
-                  + (vs[0].x - vs[2].x) * (p.y - vs[2].y)) / detT;
-        double l3= 1 - l1 - l2;
+        // the signs of p's barycentric coordinates: li is for vertex vs[i-1]
+        int l1= Predicates.orient(vs[1], vs[2], p) * orientation;
+        int l2= Predicates.orient(vs[2], vs[0], p) * orientation;
+        int l3= Predicates.orient(vs[0], vs[1], p) * orientation;
 
-        if (l1 < 0 || l2 < 0 || l3 < 0)
+        if (orientation == 0 || l1 < 0 || l2 < 0 || l3 < 0)
             return PointLocation.makeOut();
         else if ((l1 == 0 && l2 == 0) || (l2 == 0 && l3 == 0)
             || (l3 == 0 && l1 == 0))
@@ -353,9 +352,11 @@ public class Triangle {
             far= edge.unsharedVertex(outer);
         }
 
-        /** Returns true iff this Quad satisfies the Delaunay condition. */
+        /** Returns true iff this Quad satisfies the Delaunay condition: far
+         * is not strictly inside the circumcircle of inner. */
         private boolean isDelaunay() {
-            return inner.angle(add) + outer.angle(far) <= Math.PI;
+            return Predicates.inCircle(add, edge.p1(), edge.p2(), far)
+                * Predicates.orient(add, edge.p1(), edge.p2()) <= 0;
         }
 
         /** If needed, flips this bad edge, creating two new Triangles and
@@ -0,0 +1,132 @@
+package gui;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/** An instance buckets items by the rectangle of the Model they cover, so
+ * that the items overlapping a given rectangle, such as the area a
+ * SpacePanel draws, can be found without looking at all of them.
+ *
+ * The Model is divided into square cells and an item is kept in every cell
+ * its rectangle overlaps. Items are added first; the cells are laid out on
+ * the first query, after which no more items may be added. An instance is
+ * meant to be used on one thread only, like the Swing components using it. */
+public class CullingGrid<T> {
+    /* The items added, and the rectangles they cover: item i covers
+     * [x0[i], x1[i]] x [y0[i], y1[i]]. */
+    private final ArrayList<T> items= new ArrayList<>();
+    private double[] x0= new double[16], y0= new double[16];
+    private double[] x1= new double[16], y1= new double[16];
+
+    /* The rectangle of the Model divided into cells, and the cell size. */
+    private final double minX, minY;
+    private final double cellSize;
+    private final int rows, cols;
+
+    /* The items in cell c are cellItems[start[c]..start[c+1]-1]. Both are
+     * null until the first query. Cells are numbered row by row. */
+    private int[] start;
+    private int[] cellItems;
+
+    /* stamps[i] == stamp iff item i was visited by the current query. */
+    private int[] stamps;
+    private int stamp;
+
+    /** Constructor: an empty instance dividing extent into about n cells.
+     * Items need not lie within extent; those outside it are kept in the
+     * cells on its border. Precondition: n > 0. */
+    public CullingGrid(Rectangle2D extent, int n) {
+        minX= extent.getMinX();
+        minY= extent.getMinY();
+        double side= Math.sqrt(extent.getWidth() * extent.getHeight() / n);
+        cellSize= side > 0 ? side : 1;
+        cols= Math.max(1, (int) Math.ceil(extent.getWidth() / cellSize));
+        rows= Math.max(1, (int) Math.ceil(extent.getHeight() / cellSize));
+    }
+
+    /** Add t, covering the rectangle with corners (ax, ay) and (bx, by).
+     * Throws an IllegalStateException if this instance was queried. */
+    public void add(T t, double ax, double ay, double bx, double by) {
+        if (start != null)
+            throw new IllegalStateException("CullingGrid already queried");
+        int i= items.size();
+        if (i == x0.length) {
+            x0= Arrays.copyOf(x0, 2 * i);
+            y0= Arrays.copyOf(y0, 2 * i);
+            x1= Arrays.copyOf(x1, 2 * i);
+            y1= Arrays.copyOf(y1, 2 * i);
+        }
+        items.add(t);
+        x0[i]= Math.min(ax, bx);
+        y0[i]= Math.min(ay, by);
+        x1[i]= Math.max(ax, bx);
+        y1[i]= Math.max(ay, by);
+    }
+
+    /** Return the number of items added. */
+    public int size() {
+        return items.size();
+    }
+
+    /** Call action on every item whose rectangle overlaps r, once each, in
+     * no particular order. */
+    public void forEachIn(Rectangle2D r, Consumer<? super T> action) {
+        if (start == null) build();
+        if (++stamp == 0) { // wrapped around: forget all old visits
+            Arrays.fill(stamps, 0);
+            stamp= 1;
+        }
+        double rx0= r.getMinX(), ry0= r.getMinY();
+        double rx1= r.getMaxX(), ry1= r.getMaxY();
+        int c0= col(rx0), c1= col(rx1), r0= row(ry0), r1= row(ry1);
+        for (int i= r0; i <= r1; ++i) {
+            for (int j= c0; j <= c1; ++j) {
+                int c= i * cols + j;
+                for (int k= start[c]; k < start[c + 1]; ++k) {
+                    int t= cellItems[k];
+                    if (stamps[t] == stamp) continue;
+                    stamps[t]= stamp;
+                    if (x0[t] <= rx1 && rx0 <= x1[t] && y0[t] <= ry1
+                            && ry0 <= y1[t])
+                        action.accept(items.get(t));
+                }
+            }
+        }
+    }
+
+    /** Lay out the items by cell. */
+    private void build() {
+        int n= items.size();
+        start= new int[rows * cols + 1];
+        for (int t= 0; t < n; ++t)
+            for (int i= row(y0[t]); i <= row(y1[t]); ++i)
+                for (int j= col(x0[t]); j <= col(x1[t]); ++j)
+                    ++start[i * cols + j + 1];
+        for (int c= 0; c < rows * cols; ++c)
+            start[c + 1]+= start[c];
+        int[] next= Arrays.copyOf(start, rows * cols);
+        cellItems= new int[start[rows * cols]];
+        for (int t= 0; t < n; ++t)
+            for (int i= row(y0[t]); i <= row(y1[t]); ++i)
+                for (int j= col(x0[t]); j <= col(x1[t]); ++j)
+                    cellItems[next[i * cols + j]++]= t;
+        stamps= new int[n];
+    }
+
+    /** Return the column of cells containing x, clamped to the grid. */
+    private int col(double x) {
+        return clamp((int) Math.floor((x - minX) / cellSize), cols);
+    }
+
+    /** Return the row of cells containing y, clamped to the grid. */
+    private int row(double y) {
+        return clamp((int) Math.floor((y - minY) / cellSize), rows);
+    }
+
+    /** Return k clamped to 0..n-1. */
+    private static int clamp(int k, int n) {
+        return k < 0 ? 0 : k >= n ? n - 1 : k;
+    }
+}
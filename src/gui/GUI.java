@@ -5,13 +5,20 @@ import java.awt.Dimension;
 import java.awt.Toolkit;
 import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
 import javax.swing.JFrame;
 import javax.swing.JSlider;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.WindowConstants;
 
@@ -45,6 +52,15 @@ public class GUI extends JFrame {
     private static final int RESET_TIMEOUT= 3;
     private static final TimeUnit RESET_TIMEOUT_UNITS= TimeUnit.SECONDS;
 
+    /* The number of frames per second drawn by default */
+    public static final int DEFAULT_FPS= 60;
+
+    /* The number of frames per second a Renderer tries to draw */
+    private static volatile int targetFps= DEFAULT_FPS;
+
+    /* How often the measured frame and tick rates are shown, in ns */
+    private static final long RATE_PERIOD= 1_000_000_000L;
+
     /* Set the (width, height) based on user's screen size */
     static {
         Dimension s= Toolkit.getDefaultToolkit().getScreenSize();
@@ -71,13 +87,16 @@ public class GUI extends JFrame {
     private boolean pauseOnReturn;
     
     /* Simulation speed factor; 1 = normal speed, 2 = 2x speed, etc. */
-    private int simSpeed;
+    private volatile int simSpeed;
     
     /* iff true, a Renderer will continue to run */
-    private boolean running;
+    private volatile boolean running;
     
     /* iff true, a Renderer will not update the model */
-    private boolean paused;
+    private volatile boolean paused;
+
+    /* iff true, a Renderer will draw a frame even if paused */
+    private volatile boolean frameRequested;
     
     /* The current renderer for this GUI. */
     private Renderer renderer;
@@ -100,6 +119,12 @@ public class GUI extends JFrame {
         getContentPane().add(sidePanel, BorderLayout.EAST);
         setJMenuBar(menuBar);
         addKeyListener(spacePanel.spacePanelCameraMover());
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                requestFrame(); // the camera may have started moving
+            }
+        });
         spacePanel.callWhenClicked(nodeClicked);
         
         running= false;
@@ -113,12 +138,14 @@ public class GUI extends JFrame {
         sidePanel.addSpeedSliderListener(e ->
             simSpeed= ((JSlider) e.getSource()).getValue()
         );
-        sidePanel.addFollowShipListener(e ->
-            spacePanel.setFollowShip(e.getStateChange() == ItemEvent.SELECTED)
-        );
-        sidePanel.addZoomSliderListener(e ->
-            spacePanel.setZoom(((JSlider) e.getSource()).getValue())
-        );
+        sidePanel.addFollowShipListener(e -> {
+            spacePanel.setFollowShip(e.getStateChange() == ItemEvent.SELECTED);
+            requestFrame();
+        });
+        sidePanel.addZoomSliderListener(e -> {
+            spacePanel.setZoom(((JSlider) e.getSource()).getValue());
+            requestFrame();
+        });
         sidePanel.addPauseListener(e -> {
             if (e.getStateChange() == ItemEvent.SELECTED) pause();
             else unpause();
@@ -133,29 +160,82 @@ public class GUI extends JFrame {
         setVisible(true);
     }
     
-    /** An instance animates a Planet X game. */
+    /** Set the number of frames per second drawn to fps, for all GUIs.
+     * Precondition: fps > 0. */
+    public static void setTargetFps(int fps) {
+        if (fps <= 0)
+            throw new IllegalArgumentException("fps must be positive: " + fps);
+        targetFps= fps;
+    }
+
+    /** An instance animates a Planet X game.
+     *
+     * Its thread advances the game by the ticks due since the last frame,
+     * then asks the event dispatch thread to draw a frame and sleeps until
+     * the next one is due, targetFps times a second. A frame is not asked
+     * for while the previous one has not been drawn, so frames never pile
+     * up on the event dispatch thread. While paused and with nothing to
+     * animate, the thread parks until woken by wake(). */
     private class Renderer extends SwingWorker<Void, Void> {
+        /* The thread running this Renderer, or null if it has not begun. */
+        private volatile Thread thread;
+
+        /* True iff a frame was asked for and has not been drawn yet. */
+        private final AtomicBoolean framePending= new AtomicBoolean();
+
+        /* The number of ticks simulated so far: ticks passed to the model,
+         * so a second at speed 2 counts twice as many as at speed 1. */
+        private final AtomicLong ticks= new AtomicLong();
+
+        /* The number of frames drawn so far. Used on the EDT only. */
+        private long frames;
+
+        /* The frames drawn and ticks simulated as of when the rates were
+         * last shown, and when that was. Used on the EDT only. */
+        private long rateFrames, rateTicks;
+        private long rateTime= System.nanoTime();
+
         @Override
         protected Void doInBackground() {
+            thread= Thread.currentThread();
             running= true;
+            long tickNanos= Controller.TICKTIME * 1_000_000L;
             long prevTime= System.nanoTime();
             long deltaTime= 0;
+            long nextFrame= prevTime;
             while (running) {
+                if (paused && !frameRequested && !spacePanel.isCameraMoving()) {
+                    SwingUtilities.invokeLater(this::resetRates);
+                    LockSupport.park(this);
+                    prevTime= System.nanoTime();
+                    nextFrame= prevTime;
+                    continue;
+                }
+                frameRequested= false;
+
+                // simulate every tick due since the last frame, at once
+                long time= System.nanoTime();
                 if (!paused) {
-                    long time= System.nanoTime();
                     deltaTime+= time - prevTime;
-                    prevTime= time;
-
-                    while (deltaTime >= (Controller.TICKTIME * 1e6)) {
-                        deltaTime-= (Controller.TICKTIME * 1e6);
-                        for (int i= 0; i < simSpeed; ++i)
-                            ctrlr.update();
+                    long n= deltaTime / tickNanos;
+                    if (n > 0) {
+                        int speed= simSpeed;
+                        deltaTime-= n * tickNanos;
+                        ctrlr.update((int) n * speed * Controller.TICKTIME);
+                        ticks.addAndGet(n * speed);
                     }
-                } else {
-                    prevTime= System.nanoTime();
                 }
+                prevTime= time;
 
-                publish((Void) null);
+                if (!framePending.getAndSet(true))
+                    publish((Void) null);
+
+                // sleep until the next frame, without catching up on frames
+                // missed because a frame or the game took too long
+                nextFrame+= 1_000_000_000L / targetFps;
+                long wait= nextFrame - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(this, wait);
+                else nextFrame= System.nanoTime();
             }
 
             render();
@@ -164,10 +244,49 @@ public class GUI extends JFrame {
         
         @Override
         protected void process(List<Void> chunks) {
-            if (running)
-                render();
+            framePending.set(false);
+            if (!running) return;
+            render();
+
+            ++frames;
+            long time= System.nanoTime();
+            if (time - rateTime >= RATE_PERIOD) {
+                long t= ticks.get();
+                double secs= (time - rateTime) / 1e9;
+                sidePanel.updateStat(FRAME_RATE, String.format(Locale.ROOT,
+                    "%.1f", (frames - rateFrames) / secs));
+                sidePanel.updateStat(TICK_RATE, String.format(Locale.ROOT,
+                    "%.1f", (t - rateTicks) / secs));
+                rateFrames= frames;
+                rateTicks= t;
+                rateTime= time;
+            }
+        }
+
+        /** Show both rates as 0 and start measuring them afresh. Called on
+         * the EDT when the game is paused and when this Renderer goes idle,
+         * so that the rates shown are never left over from before. */
+        void resetRates() {
+            sidePanel.updateStat(FRAME_RATE, "0.0");
+            sidePanel.updateStat(TICK_RATE, "0.0");
+            rateFrames= frames;
+            rateTicks= ticks.get();
+            rateTime= System.nanoTime();
+        }
+
+        /** Wake this Renderer if it is parked, so it checks for work. */
+        void wake() {
+            Thread t= thread;
+            if (t != null) LockSupport.unpark(t);
         }
     };
+
+    /** Ask the renderer to draw a frame soon, even if paused. */
+    private void requestFrame() {
+        frameRequested= true;
+        Renderer r= renderer;
+        if (r != null) r.wake();
+    }
     
     /** Render the current state of the game. */
     private void render() {
@@ -221,6 +340,7 @@ public class GUI extends JFrame {
 
         if (renderer != null) {
             running= false;
+            renderer.wake();
             try {
                 renderer.get(RESET_TIMEOUT, RESET_TIMEOUT_UNITS);
             } catch (TimeoutException e) {
@@ -229,6 +349,7 @@ public class GUI extends JFrame {
 
             } catch (Exception e) {}
         }
+        frameRequested= true; // draw the new game once, even if paused
         renderer= new Renderer();
         renderer.execute();
     }
@@ -237,12 +358,15 @@ public class GUI extends JFrame {
     public void pause() {
         paused= true;
         sidePanel.setPauseBox(true);
+        Renderer r= renderer;
+        if (r != null) SwingUtilities.invokeLater(r::resetRates);
     }
     
     /** Unpause this GUI, allowing it to update and reflect the game's state. */
     public void unpause() {
         paused= false;
         sidePanel.setPauseBox(false);
+        requestFrame();
     }
     
     /** Signal that stage s has begun. */
@@ -45,7 +45,9 @@ public class SidePanel extends JPanel {
 		SCORE,
 		DISTANCE_LEFT,
 		CLICKED_NAME,
-		CLICKED_GEMS
+		CLICKED_GEMS,
+		FRAME_RATE,
+		TICK_RATE
 	}
 	
 	/* Contains various control tools for this game. */
@@ -83,6 +85,10 @@ public class SidePanel extends JPanel {
 		addStat(StatName.CLICKED_NAME, "Name: ", "N/A");
 		addStat(StatName.CLICKED_GEMS, "Gems: ", "N/A");
 		addText(" ");
+		addText("Performance");
+		addStat(StatName.FRAME_RATE, "Frames per second: ", "N/A");
+		addStat(StatName.TICK_RATE, "Ticks per second: ", "N/A");
+		addText(" ");
 
 		ctrlPanel= new JPanel();
 		ctrlPanel.add(new JLabel("Simulation speed"));
@@ -127,6 +133,8 @@ public class SidePanel extends JPanel {
 		updateStat(StatName.DISTANCE_LEFT, "N/A");
 		updateStat(StatName.CLICKED_NAME, "N/A");
 		updateStat(StatName.CLICKED_GEMS, "N/A");
+		updateStat(StatName.FRAME_RATE, "N/A");
+		updateStat(StatName.TICK_RATE, "N/A");
 	    repaint();
 	}
 
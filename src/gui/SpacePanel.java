@@ -6,8 +6,10 @@ import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Image;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
 import java.awt.event.KeyEvent;
@@ -17,9 +19,11 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Consumer;
@@ -63,6 +67,23 @@ public class SpacePanel extends JPanel {
     /* A map of all Edges to the Lines on this SpacePanel. */
     private ConcurrentMap<Edge, Line> eToL;
 
+    /* The Planets and the Edges of the Lines, by the area they cover, so
+     * that only those in the drawn area are drawn. null until init. */
+    private CullingGrid<Planet> planetGrid;
+    private CullingGrid<Edge> lineGrid;
+
+    /* The largest distance, in pixels, from the center of a Planet to the
+     * edge of what is drawn for it (including its name). */
+    private int planetExtent;
+
+    /* The background, Planets and Lines as last drawn, or null. They are
+     * drawn again only if the drawn area, the size of this panel or the
+     * number of Edge visits changed since, or staticValid is false. */
+    private BufferedImage staticLayer;
+    private Rectangle2D.Double staticArea= new Rectangle2D.Double();
+    private int staticVisits;
+    private boolean staticValid;
+
     /* The direction in which the camera is moving. */
     private Direction cameraDir;
     
@@ -116,18 +137,32 @@ public class SpacePanel extends JPanel {
 
         // add the Nodes
         Random r= new Random(m.getSeed());
-        for (Node n : m.getNodes()) {
+        Set<Node> ns= m.getNodes();
+        CullingGrid<Planet> pg= new CullingGrid<>(baseArea,
+            Math.max(1, ns.size() / 4));
+        planetExtent= 0;
+        for (Node n : ns) {
             Planet p= Planet.make(n.getName(), new Point(n.getX(), n.getY()),
                                   area, bounds, fm, r);
             nToP.put(n, p);
+            pg.add(p, n.getX(), n.getY(), n.getX(), n.getY());
+            Rectangle b= p.getBounds();
+            planetExtent= Math.max(planetExtent, Math.max(
+                Math.max(p.drawnX() - b.x, b.x + b.width - p.drawnX()),
+                Math.max(p.drawnY() - b.y, b.y + b.height - p.drawnY())));
         }
 
         // add the Edges
+        CullingGrid<Edge> lg= new CullingGrid<>(baseArea,
+            Math.max(1, m.getEdges().size() / 4));
         for (Edge e : m.getEdges()) {
-            Line l= new Line(nToP.get(e.getFirstExit()),
-                             nToP.get(e.getSecondExit()));
+            Node a= e.getFirstExit(), b= e.getSecondExit();
+            Line l= new Line(nToP.get(a), nToP.get(b));
             eToL.put(e, l);
+            lg.add(e, a.getX(), a.getY(), b.getX(), b.getY());
         }
+        planetGrid= pg;
+        lineGrid= lg;
 
         // add the Ship
         ship= new Ship(m.getShipLocation(), area, bounds,
@@ -146,6 +181,7 @@ public class SpacePanel extends JPanel {
         });
 
         setZoom(zoom);
+        staticValid= false;
         repaint();
     }
     
@@ -180,6 +216,12 @@ public class SpacePanel extends JPanel {
         repaint();
     }
     
+    /** Return true iff the camera is being moved, so this SpacePanel changes
+     * on update() even if the game does not. */
+    public boolean isCameraMoving() {
+        return cameraDir != null && cameraDir != Direction.NONE;
+    }
+
     /** If follows is true, this SpacePanel's view follows the ship. Otherwise,
      * the view remains fixed. */
     public void setFollowShip(boolean follows) {
@@ -193,6 +235,7 @@ public class SpacePanel extends JPanel {
         for (Planet p : nToP.values())
             p.setBounds(bounds);
         ship.setBounds(bounds);
+        staticValid= false;
         repaint();
     }
     
@@ -316,20 +359,57 @@ public class SpacePanel extends JPanel {
         whenClicked= fun;
     }
 
+    /** Draw the background, the Planets and the Lines on g, which draws on
+     * an image of size (w, h). */
+    private void drawStaticLayer(Graphics2D g, int w, int h) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, w, h);
+        g.drawImage(backgroundImage, 0, 0, w, h, null);
+
+        // draw only what overlaps the drawn area, widened by the extent of
+        // a Planet so those centered just outside it are drawn too
+        if (planetGrid == null) return;
+        double mx= (planetExtent + 1) * area.width / w;
+        double my= (planetExtent + 1) * area.height / h;
+        Rectangle2D visible= new Rectangle2D.Double(area.x - mx,
+            area.y - my, area.width + 2 * mx, area.height + 2 * my);
+        planetGrid.forEachIn(visible, p -> p.draw(g));
+        lineGrid.forEachIn(visible, e -> {
+            Line l= eToL.get(e);
+            l.setVisits(e.getNumVisits());
+            l.draw(g);
+        });
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
+        int w= getWidth(), h= getHeight();
+        if (w <= 0 || h <= 0) return;
+
+        // only the Ship moves every frame; the rest is redrawn when it changes
         Graphics2D g2d= (Graphics2D) g;
-        g2d.drawImage(backgroundImage, 0, 0, getWidth(), getHeight(), null);
-        
-        for (Planet p : nToP.values())
-            p.draw(g2d);
-        for (ConcurrentMap.Entry<Edge, Line> el : eToL.entrySet()) {
-            Line l= el.getValue();
-            l.setVisits(el.getKey().getNumVisits());
-            l.draw(g2d);
+        int visits= model == null ? 0 : model.getVisits();
+        if (!staticValid || staticLayer == null || staticLayer.getWidth() != w
+                || staticLayer.getHeight() != h || !staticArea.equals(area)
+                || staticVisits != visits) {
+            if (staticLayer == null || staticLayer.getWidth() != w
+                    || staticLayer.getHeight() != h) {
+                GraphicsConfiguration gc= getGraphicsConfiguration();
+                staticLayer= gc != null ? gc.createCompatibleImage(w, h)
+                    : new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            }
+            Graphics2D lg= staticLayer.createGraphics();
+            lg.setRenderingHints(g2d.getRenderingHints());
+            lg.setFont(getFont());
+            drawStaticLayer(lg, w, h);
+            lg.dispose();
+            staticArea.setRect(area);
+            staticVisits= visits;
+            staticValid= true;
         }
+        g2d.drawImage(staticLayer, 0, 0, null);
         if (ship != null)
             ship.draw(g2d);
     }
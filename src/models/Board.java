@@ -2,11 +2,12 @@ package models;
 
 import generation.DelaunayTriangulation;
 import generation.UEdge;
-import utils.MinPath;
+import utils.ShortestPathTree;
 import utils.Utils;
 
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.Random;
@@ -18,10 +19,15 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
 
 /** A Board represents the physical layout of a game: it tracks Nodes, Edges,
  * and size of the map. Boards are randomly generated from a seed. */
@@ -29,6 +35,11 @@ public class Board {
     /* The seed given to a RNG to generate this Board. */
     private final long seed;
 
+    /* The other parameters this Board was generated with (see
+     * BoardBuilder). */
+    private final int minNodes, maxNodes, minGems, maxGems;
+    private final DelaunayTriangulation.Engine engine;
+
     /* The "Earth" Node. The spaceship starts and must return here. */
     private Node earth;
 
@@ -38,6 +49,9 @@ public class Board {
     /* The distance of the Node furthest from the target. */
     private double furthestNodeDistance;
 
+    /* pings[i] is the ping at the Node with id i (see getPing). */
+    private double[] pings;
+
     /* The minimum traveled distance from Earth to the target. */
     private int distanceToTarget;
 
@@ -47,6 +61,21 @@ public class Board {
     /* The NodeProximityTree of all Nodes on this Board. */
     private NodeProximityGrid nodes;
 
+    /* The index answering getClosestNode: nodes or kdTree. */
+    private SpatialIndex closest;
+
+    /* A k-d tree of all Nodes on this Board; null until first needed. */
+    private KdTree kdTree;
+
+    /* byId[i] is the Node with id i. Ids are 0..byId.length-1. */
+    private Node[] byId;
+
+    /* A CSR snapshot of the graph, built once the Edges are final. */
+    private CsrGraph graph;
+
+    /* The shortest-path tree of graph rooted at Earth. */
+    private ShortestPathTree earthTree;
+
     /* The dimensions of this Board, which is a rectangle. */
     private int width;
     private int height;
@@ -54,28 +83,47 @@ public class Board {
     /* The total sum of the edge weights on this Board. */
     private int sumEdges;
 
+    /* nameIndex[i] is the index in planets.txt of the name of the Node with
+     * id i, or -1 if its name is not from planets.txt. */
+    private int[] nameIndex;
+
+    /* The Edges in the order they were added, and the Edges trimmed in the
+     * order they were removed, as pairs of ids of their first and second
+     * exits. Replaying them rebuilds the same sets of Edges (see
+     * BoardSnapshot). */
+    private int[] added;
+    private int[] trimmed;
+
     /** Constructor: a rectangular Board generated via RNG with seed s. There
      * are many Board generation parameters here explained in the Builder. */
     private Board(int w, int h, long s, int minNodes, int maxNodes, int minGems,
-            int maxGems) {
+            int maxGems, Index index, DelaunayTriangulation.Engine engine) {
         width= w;
         height= h;
         seed= s;
+        this.minNodes= minNodes;
+        this.maxNodes= maxNodes;
+        this.minGems= minGems;
+        this.maxGems= maxGems;
+        this.engine= engine;
         Random r= new Random(s);
         int np= r.nextInt(maxNodes - minNodes + 1) + minNodes;
-        DelaunayTriangulation dt= new DelaunayTriangulation(np, r, w, h);
+        DelaunayTriangulation dt= new DelaunayTriangulation(np, r, w, h,
+            engine);
 
         // convert Points to Nodes, mapping each Point to its corresponding Node
         HashMap<Point, Node> pToN= new HashMap<Point, Node>();
         nodes= new NodeProximityGrid(0, 0, w, h);
-        Queue<String> names= planetNames(r); // shuffled list of planet names
+        Queue<Integer> names= planetNames(r); // shuffled planet name indexes
         int id= 0; // id of each planet
+        byId= new Node[dt.getVertices().size()];
+        nameIndex= new int[byId.length];
         int targetId= r.nextInt(dt.getVertices().size() - 1) + 1;
 
         for (Point p : dt.getVertices()) {
             Node n= new Node.NodeBuilder()
                     .pos(p.x, p.y)
-                    .name(names.peek())
+                    .name(planetName(names.isEmpty() ? -1 : names.peek(), id))
                     .id(id)
                     .gems(gems(r, minGems, maxGems))
                     .build();
@@ -83,45 +131,199 @@ public class Board {
                 n.name= Utils.EARTH_NAME;
                 n.gems= 0;
                 earth= n;
+                nameIndex[id]= -1;
             } else if (id == targetId) {
                 n.name= Utils.CRASHED_PLANET_NAME;
                 n.gems= 0;
                 target= n;
+                nameIndex[id]= -1;
             } else {
-                names.remove();
+                // once the names run out, use "PX-<id>"
+                nameIndex[id]= names.isEmpty() ? -1 : names.poll();
             }
             ++id;
             nodes.addNode(n);
+            byId[n.getId()]= n;
             pToN.put(p, n);
         }
 
-        // add the edges
+        // add the edges, sorted by the ids of their exits: the triangulation
+        // iterates over them in an order that depends on identity hash codes,
+        // and the order in which exits are added decides which edges
+        // trimEdges removes, so it must not depend on anything but the seed
+        ArrayList<Edge> sorted= new ArrayList<Edge>();
+        for (UEdge ue : dt.getEdges())
+            sorted.add(new Edge(pToN.get(ue.p1()), pToN.get(ue.p2())));
+        sorted.sort(Comparator
+            .comparingInt((Edge e) -> Math.min(e.getFirstExit().getId(),
+                e.getSecondExit().getId()))
+            .thenComparingInt(e -> Math.max(e.getFirstExit().getId(),
+                e.getSecondExit().getId())));
         edges= new HashSet<Edge>();
-        for (UEdge ue : dt.getEdges()) {
-            Node n1= pToN.get(ue.p1());
-            Node n2= pToN.get(ue.p2());
-            Edge e= new Edge(n1, n2);
-            n1.addExit(e);
-            n2.addExit(e);
+        added= new int[2 * sorted.size()];
+        int k= 0;
+        for (Edge e : sorted) {
+            e.getFirstExit().addExit(e);
+            e.getSecondExit().addExit(e);
             edges.add(e);
+            added[k++]= e.getFirstExit().getId();
+            added[k++]= e.getSecondExit().getId();
         }
 
         // remove an arbitrary amount of edges, while keeping connectivity
         trimEdges(r);
+        freeze();
 
-        // set the furthest distance (needed for getPing)
+        // set the furthest distance, then the pings, which depend on it
+        double[] distances= new double[id];
         double maxDistance= 0;
         for (Node n : nodes) {
             double nodeDistance= absoluteDistanceToTarget(n);
+            distances[n.getId()]= nodeDistance;
             if (nodeDistance > maxDistance)
                 maxDistance= nodeDistance;
         }
         furthestNodeDistance= maxDistance;
-        distanceToTarget= MinPath.pathWeight(MinPath.minPath(earth, target));
+        pings= new double[id];
+        for (int i= 0; i < id; ++i)
+            pings[i]= 1.0 - distances[i] / furthestNodeDistance;
+        earthTree= new ShortestPathTree(graph, earth.getId());
+        distanceToTarget= earthTree.distance(target);
+        closest= index == Index.KD_TREE ? getKdTree() : nodes;
+    }
+
+    /** Constructor: the Board held by snapshot s, with the given spatial
+     * index. It replays the Edges of s instead of triangulating and trimming,
+     * and takes the cached distances from s instead of computing them.
+     * Throws an IOException if s does not describe a valid Board. */
+    private Board(BoardSnapshot s, Index index) throws IOException {
+        width= s.width;
+        height= s.height;
+        seed= s.seed;
+        minNodes= s.minNodes;
+        maxNodes= s.maxNodes;
+        minGems= s.minGems;
+        maxGems= s.maxGems;
+        try {
+            engine= DelaunayTriangulation.Engine.valueOf(s.engine);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown engine " + s.engine, e);
+        }
+
+        int count= s.xs.length;
+        nodes= new NodeProximityGrid(0, 0, width, height);
+        byId= new Node[count];
+        nameIndex= s.names;
+        for (int id= 0; id < count; ++id) {
+            if (s.xs[id] < 0 || s.xs[id] > width || s.ys[id] < 0
+                    || s.ys[id] > height)
+                throw new IOException("Node " + id + " is off the Board");
+            if (nameIndex[id] < -1
+                    || nameIndex[id] >= allPlanetNames().size())
+                throw new IOException("Node " + id + " has no planet name");
+            String name= id == s.earth ? Utils.EARTH_NAME
+                : id == s.target ? Utils.CRASHED_PLANET_NAME
+                : planetName(nameIndex[id], id);
+            Node n= new Node.NodeBuilder()
+                    .pos(s.xs[id], s.ys[id])
+                    .name(name)
+                    .id(id)
+                    .gems(s.gems[id])
+                    .build();
+            nodes.addNode(n);
+            byId[id]= n;
+        }
+        earth= byId[s.earth];
+        target= byId[s.target];
+
+        // replay the additions and removals, so that the sets of Edges are
+        // built exactly as when this Board was generated
+        added= s.added;
+        trimmed= s.trimmed;
+        edges= new HashSet<Edge>();
+        for (int k= 0; k < added.length; k+= 2) {
+            Edge e= edge(added[k], added[k + 1]);
+            e.getFirstExit().addExit(e);
+            e.getSecondExit().addExit(e);
+            edges.add(e);
+        }
+        for (int k= 0; k < trimmed.length; k+= 2) {
+            Edge e= edge(trimmed[k], trimmed[k + 1]); // equal to the one added
+            e.getFirstExit().removeExit(e);
+            e.getSecondExit().removeExit(e);
+            edges.remove(e);
+        }
+        freeze();
+
+        furthestNodeDistance= s.furthestNodeDistance;
+        pings= s.pings;
+        earthTree= new ShortestPathTree(earth.getId(), s.treeDist,
+            s.treeParent);
+        distanceToTarget= s.distanceToTarget;
+        closest= index == Index.KD_TREE ? getKdTree() : nodes;
+    }
+
+    /** Return a new Edge between the Nodes with ids id1 and id2. Throws an
+     * IOException if they are the same Node. */
+    private Edge edge(int id1, int id2) throws IOException {
+        if (id1 == id2)
+            throw new IOException("Edge from Node " + id1 + " to itself");
+        return new Edge(byId[id1], byId[id2]);
+    }
 
+    /** Freeze the Nodes of this Board now that its Edges are final, and build
+     * everything that depends only on them. */
+    private void freeze() {
+        for (Node n : nodes)
+            n.freeze();
+        graph= new CsrGraph(nodes, byId.length);
         sumEdges= sum(nodes);
     }
 
+    /** Return a snapshot of this Board (see BoardSnapshot). The arrays of
+     * the snapshot are shared with this Board, not copied. */
+    BoardSnapshot snapshot() {
+        BoardSnapshot s= new BoardSnapshot();
+        s.planets= planetsHash();
+        s.seed= seed;
+        s.width= width;
+        s.height= height;
+        s.minNodes= minNodes;
+        s.maxNodes= maxNodes;
+        s.minGems= minGems;
+        s.maxGems= maxGems;
+        s.engine= engine.name();
+        s.earth= earth.getId();
+        s.target= target.getId();
+        int count= byId.length;
+        s.xs= new int[count];
+        s.ys= new int[count];
+        s.gems= new int[count];
+        s.treeDist= new int[count];
+        s.treeParent= new int[count];
+        for (int id= 0; id < count; ++id) {
+            s.xs[id]= byId[id].getX();
+            s.ys[id]= byId[id].getY();
+            s.gems[id]= byId[id].gems;
+            s.treeDist[id]= earthTree.distance(id);
+            s.treeParent[id]= earthTree.parent(id);
+        }
+        s.names= nameIndex;
+        s.added= added;
+        s.trimmed= trimmed;
+        s.furthestNodeDistance= furthestNodeDistance;
+        s.distanceToTarget= distanceToTarget;
+        s.pings= pings;
+        return s;
+    }
+
+    /** Save this Board to file f, replacing it if it exists, so that
+     * BoardBuilder.snapshot can load it instead of generating it again. The
+     * Nodes are saved with the gems they have now. */
+    public void save(File f) throws IOException {
+        snapshot().write(f);
+    }
+
     /** Return the sum of the distances on all edges. node is one of the nodes */
     private int sum(NodeProximityGrid nodes) {
         int sum= 0;
@@ -172,7 +374,11 @@ public class Board {
         }
 
         // randomly trim some candidate edges
+        // an Edge can be a candidate twice, so record only the removals that
+        // changed the Edges
         int iterations= r.nextInt(candidates.size());
+        trimmed= new int[2 * iterations];
+        int removed= 0;
         for (int count= 0; count < iterations; ++count) {
             int end= candidates.size() - 1;
             int index= r.nextInt(candidates.size());
@@ -181,19 +387,49 @@ public class Board {
             candidates.remove(end);
             trim.getFirstExit().removeExit(trim);
             trim.getSecondExit().removeExit(trim);
-            edges.remove(trim);
+            if (edges.remove(trim)) {
+                trimmed[removed++]= trim.getFirstExit().getId();
+                trimmed[removed++]= trim.getSecondExit().getId();
+            }
         }
+        trimmed= Arrays.copyOf(trimmed, removed);
     }
 
     /* Location of files for board generation */
     private static final String BOARD_GENERATION_DIRECTORY= Utils.DIRECTORY
             + "/data/board_generation";
 
-    /** Return the planet names listed in planets.txt, shuffled to a random
-     * order using RNG r.
+    /* The planet names listed in planets.txt, in file order, and their
+     * hash; null until they are first needed. */
+    private static List<String> allNames;
+    private static Integer namesHash;
+
+    /** Return the indexes of the planet names listed in planets.txt,
+     * shuffled to a random order using RNG r. The shuffle draws from r just
+     * as shuffling the names themselves would.
      * 
      * Precondition: planets.txt can be found at BOARD_GENERATION_DIRECTORY. */
-    private static Queue<String> planetNames(Random r) {
+    private static Queue<Integer> planetNames(Random r) {
+        int count= allPlanetNames().size();
+        ArrayList<Integer> names= new ArrayList<Integer>(count);
+        for (int i= 0; i < count; ++i)
+            names.add(i);
+        Collections.shuffle(names, r);
+        return new ArrayDeque<Integer>(names);
+    }
+
+    /** Return the name of the Node with id id whose name has index index in
+     * planets.txt, or "PX-<id>" if index is -1. */
+    private static String planetName(int index, int id) {
+        return index == -1 ? "PX-" + id : allPlanetNames().get(index);
+    }
+
+    /** Return the planet names listed in planets.txt, reading the file only
+     * the first time, so that Boards built in a batch do not each read it.
+     * 
+     * Precondition: planets.txt can be found at BOARD_GENERATION_DIRECTORY. */
+    private static synchronized List<String> allPlanetNames() {
+        if (allNames != null) return allNames;
         File f= new File(BOARD_GENERATION_DIRECTORY + "/planets.txt");
         BufferedReader reader;
         try {
@@ -201,7 +437,7 @@ public class Board {
         } catch (FileNotFoundException e) {
             throw new UncheckedIOException("Cannot find planets.txt", e);
         }
-        LinkedList<String> names= new LinkedList<String>();
+        ArrayList<String> names= new ArrayList<String>();
         try {
             String line;
             while ((line= reader.readLine()) != null) {
@@ -213,8 +449,23 @@ public class Board {
         } catch (IOException e) {
             throw new UncheckedIOException("Error reading planets.txt", e);
         }
-        Collections.shuffle(names, r);
-        return names;
+        allNames= Collections.unmodifiableList(names);
+        return allNames;
+    }
+
+    /** Return a hash of the planet names listed in planets.txt, so that a
+     * snapshot taken with other names is not loaded (see BoardSnapshot).
+     * 
+     * Precondition: planets.txt can be found at BOARD_GENERATION_DIRECTORY. */
+    private static synchronized int planetsHash() {
+        if (namesHash != null) return namesHash;
+        CRC32 crc= new CRC32();
+        for (String name : allPlanetNames()) {
+            crc.update(name.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        namesHash= (int) crc.getValue();
+        return namesHash;
     }
 
     /** Return a uniformly-distributed random amount of gems set by the
@@ -233,9 +484,10 @@ public class Board {
      * n and the target planet
      * 
      * The returned value d satisfies 0 <= d <= 1. If d = 1, n is the target
-     * node. If d = 0, n is the node furthest from the target node. */
+     * node. If d = 0, n is the node furthest from the target node. Pings are
+     * computed once, when this Board is built. */
     public double getPing(Node n) {
-        return 1.0 - absoluteDistanceToTarget(n) / furthestNodeDistance;
+        return pings[n.getId()];
     }
 
     /** Return the absolute distance from n to the target. */
@@ -253,18 +505,35 @@ public class Board {
     /** Return the closest Node to the given Point, or null if there are no
      * Nodes. */
     public Node getClosestNode(Point2D p) {
-        return nodes.getClosestNode(p);
+        return closest.getClosestNode(p);
+    }
+
+    /** Return a k-d tree of all Nodes on this Board, for k-nearest, radius
+     * and rectangle queries. It is built on the first call, unless this
+     * Board was built with Index.KD_TREE. */
+    public synchronized KdTree getKdTree() {
+        if (kdTree == null)
+            kdTree= new KdTree(nodes);
+        return kdTree;
+    }
+
+    /** The spatial indexes that can answer getClosestNode. GRID buckets the
+     * Nodes into fixed 64x64 cells and is fastest when they are spread
+     * evenly; KD_TREE does not depend on how they are spread. */
+    public static enum Index {
+        GRID, KD_TREE
     }
 
     /** Return the Node with ID id in this board if it exists, null
-     * otherwise. */
+     * otherwise. Takes constant time. */
     public Node getNode(long id) {
-        for (Node n : nodes) {
-            if (n.getId() == id)
-                return n;
-        }
+        return 0 <= id && id < byId.length ? byId[(int) id] : null;
+    }
 
-        return null;
+    /** Return the number of Nodes on this Board. Their ids are
+     * 0..getNodeCount()-1. */
+    public int getNodeCount() {
+        return byId.length;
     }
 
     /** Return the starting Earth Node. */
@@ -282,6 +551,19 @@ public class Board {
         return Collections.unmodifiableSet(edges);
     }
 
+    /** Return an immutable CSR snapshot of this Board's graph, indexed by
+     * Node id. It reflects the final Edges of this Board. */
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /** Return the shortest-path tree of this Board rooted at Earth. It is
+     * computed once, when this Board is built, and gives the distance and a
+     * shortest path from any Node to Earth. */
+    public ShortestPathTree getEarthTree() {
+        return earthTree;
+    }
+
     /** Return the distance between the target Node and its furthest Node. */
     public double getFurthestNodeDistance() {
         return furthestNodeDistance;
@@ -310,6 +592,10 @@ public class Board {
         private Long seed;
         private Integer minNodes, maxNodes;
         private Integer minGems, maxGems;
+        private Index index= Index.GRID; // optional
+        private DelaunayTriangulation.Engine engine= // optional
+            DelaunayTriangulation.Engine.LEGACY;
+        private File snapshot; // optional
 
         /** Set the dimensions (width x height) of this rectangular Board. */
         public BoardBuilder size(int width, int height) {
@@ -339,6 +625,36 @@ public class Board {
             return this;
         }
 
+        /** Set the spatial index answering getClosestNode (default
+         * Index.GRID). The Board does not depend on it otherwise. */
+        public BoardBuilder index(Index index) {
+            if (index == null)
+                throw new IllegalArgumentException("null index");
+            this.index= index;
+            return this;
+        }
+
+        /** Set the engine triangulating this Board (default LEGACY). Every
+         * engine places the same Nodes; see DelaunayTriangulation. */
+        public BoardBuilder triangulation(DelaunayTriangulation.Engine e) {
+            if (e == null)
+                throw new IllegalArgumentException("null engine");
+            engine= e;
+            return this;
+        }
+
+        /** Set the snapshot file of this Board (default none). If f holds
+         * a snapshot of a Board generated with the same parameters, build
+         * loads it instead of generating the Board; otherwise build generates
+         * the Board and saves it to f, so that the next build with the same
+         * parameters loads it. */
+        public BoardBuilder snapshot(File f) {
+            if (f == null)
+                throw new IllegalArgumentException("null snapshot file");
+            snapshot= f;
+            return this;
+        }
+
         /** Build this Board.
          * 
          * Precondition: all appropriate parameters have been set. */
@@ -347,8 +663,36 @@ public class Board {
                     minGems, maxGems))
                 throw new IllegalStateException("unset BoardBuilder params");
 
-            return new Board(width, height, seed, minNodes, maxNodes, minGems,
-                    maxGems);
+            if (snapshot != null && snapshot.isFile()) {
+                try {
+                    BoardSnapshot s= BoardSnapshot.read(snapshot);
+                    if (matches(s))
+                        return new Board(s, index);
+                } catch (IOException e) {
+                    // a damaged snapshot is replaced, as a mismatched one is
+                }
+            }
+            Board b= new Board(width, height, seed, minNodes, maxNodes,
+                    minGems, maxGems, index, engine);
+            if (snapshot != null) {
+                try {
+                    b.save(snapshot);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot save snapshot "
+                            + snapshot, e);
+                }
+            }
+            return b;
+        }
+
+        /** Return true iff snapshot s was generated with the parameters of
+         * this BoardBuilder, from the planet names now in planets.txt. */
+        private boolean matches(BoardSnapshot s) {
+            return s.planets == planetsHash()
+                && s.width == width && s.height == height && s.seed == seed
+                && s.minNodes == minNodes && s.maxNodes == maxNodes
+                && s.minGems == minGems && s.maxGems == maxGems
+                && s.engine.equals(engine.name());
         }
     }
 }
@@ -0,0 +1,247 @@
+package models;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import utils.ShortestPathTree;
+
+/** An instance holds everything needed to rebuild a generated Board without
+ * generating it again, and reads and writes it in a compact binary format.
+ *
+ * A snapshot file holds, in big-endian order: the magic number and format
+ * version; a hash of the planet names in planets.txt, which the names of the
+ * Nodes index into; the seed, size and generation parameters; the number of Nodes and
+ * the ids of Earth and the target; the x, y, planet name index and gems of
+ * every Node, as four int arrays indexed by id; the Edges of the
+ * triangulation in the order they were added, as pairs of ids; the Edges
+ * trimmed, in the order they were removed; and the cached distances: the
+ * furthest distance from the target, the distance from Earth to the target,
+ * the pings, and the distances and parents of the shortest-path tree rooted
+ * at Earth.
+ *
+ * Files are read through a memory map, with the arrays copied in bulk, so
+ * that loading takes time proportional to the file size only. Reading
+ * checks every array against the bounds a generated Board satisfies, so a
+ * damaged file is rejected rather than built into a broken Board. */
+final class BoardSnapshot {
+    /* "PXB" and the version of the format. The version also changes when
+     * generation does, so that older snapshots of a seed are not loaded. */
+    private static final int MAGIC= 0x50584200;
+    private static final int VERSION= 3;
+
+    /* The hash of planets.txt (see Board) when the snapshot was taken. */
+    int planets;
+
+    /* The parameters the Board was generated with. engine is the name of a
+     * DelaunayTriangulation.Engine. */
+    long seed;
+    int width, height;
+    int minNodes, maxNodes, minGems, maxGems;
+    String engine;
+
+    /* The ids of Earth and the target, and the Nodes by id: name[i] is an
+     * index into planets.txt, or -1 if Node i has no name from it. */
+    int earth, target;
+    int[] xs, ys, names, gems;
+
+    /* The Edges as added, added[2k] and added[2k+1] being the first and
+     * second exit of Edge k, and the Edges trimmed, in the same form. */
+    int[] added, trimmed;
+
+    /* The cached distances (see Board). */
+    double furthestNodeDistance;
+    int distanceToTarget;
+    double[] pings;
+    int[] treeDist, treeParent;
+
+    /** Write this snapshot to file f, replacing it if it exists. The file is
+     * written under another name first, so that a reader never sees it half
+     * written. */
+    void write(File f) throws IOException {
+        byte[] name= engine.getBytes(StandardCharsets.UTF_8);
+        int n= xs.length;
+        long size= 4 * 3 + 8 + 4 * 6 + 4 + name.length + 4 * 3 + 4L * 4 * n
+            + 4 + 4L * added.length + 4 + 4L * trimmed.length + 8 + 4
+            + 8L * n + 4L * 2 * n;
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Board too large for a snapshot");
+        ByteBuffer b= ByteBuffer.allocate((int) size);
+        b.putInt(MAGIC).putInt(VERSION).putInt(planets);
+        b.putLong(seed);
+        b.putInt(width).putInt(height);
+        b.putInt(minNodes).putInt(maxNodes).putInt(minGems).putInt(maxGems);
+        b.putInt(name.length).put(name);
+        b.putInt(n).putInt(earth).putInt(target);
+        putInts(b, xs);
+        putInts(b, ys);
+        putInts(b, names);
+        putInts(b, gems);
+        b.putInt(added.length / 2);
+        putInts(b, added);
+        b.putInt(trimmed.length / 2);
+        putInts(b, trimmed);
+        b.putDouble(furthestNodeDistance).putInt(distanceToTarget);
+        b.asDoubleBuffer().put(pings);
+        b.position(b.position() + 8 * n);
+        putInts(b, treeDist);
+        putInts(b, treeParent);
+        b.flip();
+
+        Path target= f.toPath();
+        Path tmp= Files.createTempFile(target.toAbsolutePath().getParent(),
+            f.getName(), ".tmp");
+        try (FileChannel ch= FileChannel.open(tmp,
+                StandardOpenOption.WRITE)) {
+            while (b.hasRemaining())
+                ch.write(b);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Return the snapshot in file f. Throws an IOException if f cannot be
+     * read or does not hold a valid snapshot in this format. */
+    static BoardSnapshot read(File f) throws IOException {
+        MappedByteBuffer b;
+        try (FileChannel ch= FileChannel.open(f.toPath(),
+                StandardOpenOption.READ)) {
+            b= ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        try {
+            if (b.getInt() != MAGIC)
+                throw new IOException(f + " is not a Board snapshot");
+            if (b.getInt() != VERSION)
+                throw new IOException(f + " has an unknown snapshot version");
+            BoardSnapshot s= new BoardSnapshot();
+            s.planets= b.getInt();
+            s.seed= b.getLong();
+            s.width= b.getInt();
+            s.height= b.getInt();
+            s.minNodes= b.getInt();
+            s.maxNodes= b.getInt();
+            s.minGems= b.getInt();
+            s.maxGems= b.getInt();
+            byte[] name= new byte[length(b, 1)];
+            b.get(name);
+            s.engine= new String(name, StandardCharsets.UTF_8);
+            int n= length(b, 16);
+            s.earth= id(b.getInt(), n);
+            s.target= id(b.getInt(), n);
+            if (s.earth == s.target)
+                throw new IOException("Earth is the target");
+            s.xs= getInts(b, n, 0, s.width);
+            s.ys= getInts(b, n, 0, s.height);
+            s.names= getInts(b, n, -1, Integer.MAX_VALUE);
+            s.gems= getInts(b, n, 0, Integer.MAX_VALUE);
+            s.added= getIds(b, 2 * length(b, 8), n);
+            s.trimmed= getIds(b, 2 * length(b, 8), n);
+            s.furthestNodeDistance= b.getDouble();
+            if (!(s.furthestNodeDistance > 0)
+                    || Double.isInfinite(s.furthestNodeDistance))
+                throw new IOException("Furthest distance "
+                    + s.furthestNodeDistance + " out of range");
+            s.distanceToTarget= b.getInt();
+            s.pings= new double[length(b, n, 8)];
+            b.asDoubleBuffer().get(s.pings);
+            b.position(b.position() + 8 * n);
+            for (double p : s.pings)
+                if (!(p >= 0 && p <= 1))
+                    throw new IOException("Ping " + p + " out of range");
+            s.treeDist= getInts(b, n);
+            s.treeParent= getInts(b, n);
+            checkTree(s);
+            if (b.hasRemaining())
+                throw new IOException(f + " has trailing data");
+            return s;
+        } catch (BufferUnderflowException e) {
+            throw new IOException(f + " is truncated", e);
+        }
+    }
+
+    /** Put the ints of a into b. */
+    private static void putInts(ByteBuffer b, int[] a) {
+        b.asIntBuffer().put(a);
+        b.position(b.position() + 4 * a.length);
+    }
+
+    /** Return the next n ints of b. */
+    private static int[] getInts(ByteBuffer b, int n) {
+        int[] a= new int[length(b, n, 4)];
+        b.asIntBuffer().get(a);
+        b.position(b.position() + 4 * n);
+        return a;
+    }
+
+    /** Return the next n ints of b, checking that they are in lo..hi. */
+    private static int[] getInts(ByteBuffer b, int n, int lo, int hi)
+            throws IOException {
+        int[] a= getInts(b, n);
+        for (int v : a)
+            if (v < lo || v > hi)
+                throw new IOException("Value " + v + " out of range");
+        return a;
+    }
+
+    /** Return the next n ints of b, checking that they are ids of Nodes
+     * 0..count-1. */
+    private static int[] getIds(ByteBuffer b, int n, int count)
+            throws IOException {
+        int[] a= getInts(b, n);
+        for (int v : a)
+            id(v, count);
+        return a;
+    }
+
+    /** Check that the tree of s is a shortest-path tree rooted at Earth:
+     * every parent is a Node closer to Earth, so following parents ends at
+     * Earth, and a Node is unreachable iff it has no parent. Throw an
+     * IOException if it is not. */
+    private static void checkTree(BoardSnapshot s) throws IOException {
+        int[] dist= s.treeDist, parent= s.treeParent;
+        if (dist[s.earth] != 0 || parent[s.earth] != -1)
+            throw new IOException("Tree not rooted at Earth");
+        for (int v= 0; v < dist.length; ++v) {
+            if (v == s.earth) continue;
+            int p= parent[v];
+            if (dist[v] == ShortestPathTree.UNREACHABLE ? p != -1
+                    : dist[v] <= 0 || id(p, dist.length) == v
+                        || dist[p] >= dist[v])
+                throw new IOException("Tree parent of Node " + v
+                    + " out of range");
+        }
+        if (s.distanceToTarget != dist[s.target])
+            throw new IOException("Distance to target does not match tree");
+    }
+
+    /** Return the next int of b, the length of an array of elements of the
+     * given size in bytes, after checking that b has room for it. */
+    private static int length(ByteBuffer b, int bytes) {
+        return length(b, b.getInt(), bytes);
+    }
+
+    /** Return n, after checking that b has room for n elements of the given
+     * size in bytes. */
+    private static int length(ByteBuffer b, int n, int bytes) {
+        if (n < 0 || (long) n * bytes > b.remaining())
+            throw new BufferUnderflowException();
+        return n;
+    }
+
+    /** Return v, after checking that it is the id of one of count Nodes. */
+    private static int id(int v, int count) throws IOException {
+        if (v < 0 || v >= count)
+            throw new IOException("Node id " + v + " out of range");
+        return v;
+    }
+}
@@ -0,0 +1,158 @@
+package models;
+
+import java.util.Arrays;
+
+import utils.Utils;
+
+/** An instance is an immutable compressed sparse row (CSR) snapshot of the
+ * graph of a Board, for algorithms that need to traverse it quickly.
+ *
+ * Nodes are identified by their ids, 0..nodeCount()-1. The neighbors of node v
+ * are target(i) for begin(v) <= i < end(v), and weight(i) is the length of the
+ * Edge leading to target(i). The neighbors of each node are sorted by id.
+ * Every undirected Edge appears twice, once from each of its exits. The
+ * coordinates of each node are kept as well, for geometric heuristics.
+ *
+ * None of the accessors allocate, so a traversal looks like:
+ *
+ *     for (int i= g.begin(v); i < g.end(v); ++i)
+ *         visit(g.target(i), g.weight(i));
+ */
+public final class CsrGraph {
+    /* offsets[v]..offsets[v+1]-1 are the indices of v's neighbors in targets
+     * and weights. offsets.length = nodeCount() + 1. */
+    private final int[] offsets;
+
+    /* The ids of the neighbors of all nodes, grouped by node. */
+    private final int[] targets;
+
+    /* weights[i] is the length of the Edge to targets[i]. */
+    private final int[] weights;
+
+    /* The maximum weight of any edge; 0 if there are none. */
+    private final int maxWeight;
+
+    /* xs[v] and ys[v] are the coordinates of node v. */
+    private final int[] xs;
+    private final int[] ys;
+
+    /* The minimum, over all edges, of the edge's weight divided by the
+     * distance between its endpoints; 1 if there are no edges. */
+    private final double lengthRatio;
+
+    /** Constructor: a snapshot of the n Nodes in nodes and the Edges leaving
+     * them. Precondition: the ids of nodes are exactly 0..n-1. */
+    CsrGraph(Iterable<Node> nodes, int n) {
+        offsets= new int[n + 1];
+        xs= new int[n];
+        ys= new int[n];
+        for (Node v : nodes) {
+            offsets[v.getId() + 1]= v.getExits().size();
+            xs[v.getId()]= v.getX();
+            ys[v.getId()]= v.getY();
+        }
+        for (int v= 0; v < n; ++v)
+            offsets[v + 1]+= offsets[v];
+
+        targets= new int[offsets[n]];
+        weights= new int[offsets[n]];
+        int max= 0;
+        double ratio= 1;
+        for (Node v : nodes) {
+            int i= offsets[v.getId()];
+            for (Edge e : v.getExits()) {
+                Node w= e.getOther(v);
+                targets[i]= w.getId();
+                weights[i]= e.length;
+                max= Math.max(max, e.length);
+                ratio= Math.min(ratio, e.length / Utils.distance(
+                    v.getX(), v.getY(), w.getX(), w.getY()));
+                ++i;
+            }
+        }
+        maxWeight= max;
+        lengthRatio= ratio;
+
+        // sort each adjacency range by target id, keeping weights in step
+        for (int v= 0; v < n; ++v) {
+            for (int i= offsets[v] + 1; i < offsets[v + 1]; ++i) {
+                int t= targets[i];
+                int w= weights[i];
+                int j= i - 1;
+                while (j >= offsets[v] && targets[j] > t) {
+                    targets[j + 1]= targets[j];
+                    weights[j + 1]= weights[j];
+                    --j;
+                }
+                targets[j + 1]= t;
+                weights[j + 1]= w;
+            }
+        }
+    }
+
+    /** Return the number of nodes in this graph. */
+    public int nodeCount() {
+        return offsets.length - 1;
+    }
+
+    /** Return the number of undirected edges in this graph. */
+    public int edgeCount() {
+        return targets.length / 2;
+    }
+
+    /** Return the number of neighbors of node v. */
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /** Return the index of the first neighbor of node v. */
+    public int begin(int v) {
+        return offsets[v];
+    }
+
+    /** Return one past the index of the last neighbor of node v. */
+    public int end(int v) {
+        return offsets[v + 1];
+    }
+
+    /** Return the id of the neighbor at index i. */
+    public int target(int i) {
+        return targets[i];
+    }
+
+    /** Return the length of the edge at index i. */
+    public int weight(int i) {
+        return weights[i];
+    }
+
+    /** Return the length of the edge between nodes u and v, or -1 if they are
+     * not connected. Takes time logarithmic in the degree of u. */
+    public int weight(int u, int v) {
+        int i= Arrays.binarySearch(targets, offsets[u], offsets[u + 1], v);
+        return i >= 0 ? weights[i] : -1;
+    }
+
+    /** Return the maximum length of any edge in this graph (0 if none). */
+    public int maxWeight() {
+        return maxWeight;
+    }
+
+    /** Return the x coordinate of node v. */
+    public int x(int v) {
+        return xs[v];
+    }
+
+    /** Return the y coordinate of node v. */
+    public int y(int v) {
+        return ys[v];
+    }
+
+    /** Return the largest r <= 1 such that every edge is at least r times
+     * as long as the straight line between its endpoints. Edge lengths are
+     * rounded, so r can be below 1; r times the straight-line distance
+     * between two nodes is a lower bound on the length of any path between
+     * them. */
+    public double lengthRatio() {
+        return lengthRatio;
+    }
+}
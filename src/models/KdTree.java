@@ -0,0 +1,283 @@
+package models;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** An instance is an immutable 2-d tree over a set of Nodes, answering
+ * nearest, k-nearest, radius and rectangle queries. Unlike NodeProximityGrid,
+ * its cost does not depend on how evenly the Nodes are spread.
+ *
+ * The tree is implicit: the Nodes are kept in one array, and the subtree for
+ * slots lo..hi-1 has its root at mid = (lo + hi) / 2, its left subtree in
+ * lo..mid-1 and its right subtree in mid+1..hi-1. Subtrees at even depth are
+ * split by x and those at odd depth by y. Building takes expected time
+ * O(n log n); a nearest query takes O(log n) time for typical boards. */
+public final class KdTree implements SpatialIndex {
+    /* The Nodes in tree order, and their x and y coordinates. */
+    private final Node[] nodes;
+    private final int[] xs;
+    private final int[] ys;
+
+    /** Constructor: a tree over the Nodes in ns. */
+    public KdTree(Iterable<Node> ns) {
+        ArrayList<Node> list= new ArrayList<Node>();
+        for (Node n : ns)
+            list.add(n);
+        nodes= list.toArray(new Node[list.size()]);
+        xs= new int[nodes.length];
+        ys= new int[nodes.length];
+        for (int s= 0; s < nodes.length; ++s) {
+            xs[s]= nodes[s].getX();
+            ys[s]= nodes[s].getY();
+        }
+        build(0, nodes.length, 0);
+    }
+
+    /** Arrange slots lo..hi-1 into a subtree at depth depth. */
+    private void build(int lo, int hi, int depth) {
+        while (hi - lo > 1) {
+            int mid= (lo + hi) >>> 1;
+            select(lo, hi, mid, depth % 2 == 0 ? xs : ys);
+            build(lo, mid, depth + 1);
+            lo= mid + 1; // then the right subtree
+            ++depth;
+        }
+    }
+
+    /** Rearrange slots lo..hi-1 so that slot k holds the value that would be
+     * there if they were sorted by key, with no smaller key after it and no
+     * larger key before it (quickselect). key is xs or ys. */
+    private void select(int lo, int hi, int k, int[] key) {
+        --hi; // inclusive from here on
+        while (lo < hi) {
+            int pivot= key[(lo + hi) >>> 1];
+            int i= lo, j= hi;
+            while (i <= j) {
+                while (key[i] < pivot) ++i;
+                while (key[j] > pivot) --j;
+                if (i <= j) {
+                    swap(i, j);
+                    ++i;
+                    --j;
+                }
+            }
+            if (k <= j) hi= j;
+            else if (k >= i) lo= i;
+            else return;
+        }
+    }
+
+    /** Swap slots i and j. */
+    private void swap(int i, int j) {
+        Node n= nodes[i];
+        nodes[i]= nodes[j];
+        nodes[j]= n;
+        int t= xs[i];
+        xs[i]= xs[j];
+        xs[j]= t;
+        t= ys[i];
+        ys[i]= ys[j];
+        ys[j]= t;
+    }
+
+    /** Return the number of Nodes in this tree. */
+    public int size() {
+        return nodes.length;
+    }
+
+    @Override
+    public Node getClosestNode(Point2D p) {
+        return nearest(p.getX(), p.getY());
+    }
+
+    /** Return the Node closest to (x, y), or null if this tree is empty. */
+    public Node nearest(double x, double y) {
+        if (nodes.length == 0) return null;
+        double[] best= {Double.POSITIVE_INFINITY, -1}; // squared dist, slot
+        nearest(0, nodes.length, 0, x, y, best);
+        return nodes[(int) best[1]];
+    }
+
+    /** Update best to the closest slot of lo..hi-1, a subtree at depth
+     * depth, to (x, y) if it is closer than best. */
+    private void nearest(int lo, int hi, int depth, double x, double y,
+            double[] best) {
+        if (lo >= hi) return;
+        int mid= (lo + hi) >>> 1;
+        double d= dist2(mid, x, y);
+        if (d < best[0]) {
+            best[0]= d;
+            best[1]= mid;
+        }
+        double delta= depth % 2 == 0 ? x - xs[mid] : y - ys[mid];
+        // search the side containing (x, y) first, the other only if needed
+        if (delta < 0) {
+            nearest(lo, mid, depth + 1, x, y, best);
+            if (delta * delta < best[0])
+                nearest(mid + 1, hi, depth + 1, x, y, best);
+        } else {
+            nearest(mid + 1, hi, depth + 1, x, y, best);
+            if (delta * delta < best[0])
+                nearest(lo, mid, depth + 1, x, y, best);
+        }
+    }
+
+    /** Return a new list of the min(k, size()) Nodes closest to (x, y),
+     * closest first. Precondition: k >= 0. */
+    public List<Node> kNearest(double x, double y, int k) {
+        if (k < 0) throw new IllegalArgumentException("k < 0: " + k);
+        Candidates c= new Candidates(Math.min(k, nodes.length));
+        if (c.capacity() > 0)
+            kNearest(0, nodes.length, 0, x, y, c);
+        return c.sorted();
+    }
+
+    /** Offer to c every slot of lo..hi-1, a subtree at depth depth, that
+     * could be among the closest to (x, y). */
+    private void kNearest(int lo, int hi, int depth, double x, double y,
+            Candidates c) {
+        if (lo >= hi) return;
+        int mid= (lo + hi) >>> 1;
+        c.offer(mid, dist2(mid, x, y));
+        double delta= depth % 2 == 0 ? x - xs[mid] : y - ys[mid];
+        if (delta < 0) {
+            kNearest(lo, mid, depth + 1, x, y, c);
+            if (delta * delta < c.bound())
+                kNearest(mid + 1, hi, depth + 1, x, y, c);
+        } else {
+            kNearest(mid + 1, hi, depth + 1, x, y, c);
+            if (delta * delta < c.bound())
+                kNearest(lo, mid, depth + 1, x, y, c);
+        }
+    }
+
+    /** Return a new list of the Nodes at distance at most r from (x, y), in
+     * no particular order. */
+    public List<Node> withinRadius(double x, double y, double r) {
+        List<Node> result= new ArrayList<Node>();
+        if (r >= 0)
+            withinRadius(0, nodes.length, 0, x, y, r, result);
+        return result;
+    }
+
+    /** Add to result the Nodes of slots lo..hi-1, a subtree at depth depth,
+     * at distance at most r from (x, y). */
+    private void withinRadius(int lo, int hi, int depth, double x, double y,
+            double r, List<Node> result) {
+        if (lo >= hi) return;
+        int mid= (lo + hi) >>> 1;
+        if (dist2(mid, x, y) <= r * r)
+            result.add(nodes[mid]);
+        double delta= depth % 2 == 0 ? x - xs[mid] : y - ys[mid];
+        if (delta <= r)
+            withinRadius(lo, mid, depth + 1, x, y, r, result);
+        if (delta >= -r)
+            withinRadius(mid + 1, hi, depth + 1, x, y, r, result);
+    }
+
+    /** Return a new list of the Nodes in the axis-aligned rectangle with
+     * corners (x0, y0) and (x1, y1), boundary included, in no particular
+     * order. */
+    public List<Node> inRectangle(double x0, double y0, double x1,
+            double y1) {
+        List<Node> result= new ArrayList<Node>();
+        inRectangle(0, nodes.length, 0, Math.min(x0, x1), Math.min(y0, y1),
+            Math.max(x0, x1), Math.max(y0, y1), result);
+        return result;
+    }
+
+    /** Add to result the Nodes of slots lo..hi-1, a subtree at depth depth,
+     * in the rectangle [xlo, xhi] x [ylo, yhi]. */
+    private void inRectangle(int lo, int hi, int depth, double xlo,
+            double ylo, double xhi, double yhi, List<Node> result) {
+        if (lo >= hi) return;
+        int mid= (lo + hi) >>> 1;
+        if (xlo <= xs[mid] && xs[mid] <= xhi && ylo <= ys[mid]
+                && ys[mid] <= yhi)
+            result.add(nodes[mid]);
+        int split= depth % 2 == 0 ? xs[mid] : ys[mid];
+        double min= depth % 2 == 0 ? xlo : ylo;
+        double max= depth % 2 == 0 ? xhi : yhi;
+        if (min <= split)
+            inRectangle(lo, mid, depth + 1, xlo, ylo, xhi, yhi, result);
+        if (max >= split)
+            inRectangle(mid + 1, hi, depth + 1, xlo, ylo, xhi, yhi, result);
+    }
+
+    /** Return the squared distance between the Node in slot s and
+     * (x, y). */
+    private double dist2(int s, double x, double y) {
+        double dx= xs[s] - x;
+        double dy= ys[s] - y;
+        return dx * dx + dy * dy;
+    }
+
+    /** An instance keeps the closest slots offered so far, up to a fixed
+     * number, in a max-heap on distance. */
+    private class Candidates {
+        private final int[] slots;
+        private final double[] dists;
+        private int size;
+
+        /** Constructor: an empty instance keeping up to k slots. */
+        Candidates(int k) {
+            slots= new int[k];
+            dists= new double[k];
+        }
+
+        /** Return the number of slots this instance keeps. */
+        int capacity() {
+            return slots.length;
+        }
+
+        /** Return the squared distance a slot must beat to be kept. */
+        double bound() {
+            return size < slots.length ? Double.POSITIVE_INFINITY : dists[0];
+        }
+
+        /** Keep slot s, at squared distance d, if it is among the closest. */
+        void offer(int s, double d) {
+            if (size < slots.length) {
+                int k= size++;
+                while (k > 0 && dists[(k - 1) / 2] < d) {
+                    slots[k]= slots[(k - 1) / 2];
+                    dists[k]= dists[(k - 1) / 2];
+                    k= (k - 1) / 2;
+                }
+                slots[k]= s;
+                dists[k]= d;
+            } else if (d < dists[0]) {
+                siftDown(s, d);
+            }
+        }
+
+        /** Replace the root with slot s at squared distance d and restore
+         * the heap. */
+        private void siftDown(int s, double d) {
+            int k= 0;
+            while (2 * k + 1 < size) {
+                int c= 2 * k + 1;
+                if (c + 1 < size && dists[c + 1] > dists[c]) ++c;
+                if (dists[c] <= d) break;
+                slots[k]= slots[c];
+                dists[k]= dists[c];
+                k= c;
+            }
+            slots[k]= s;
+            dists[k]= d;
+        }
+
+        /** Return the Nodes kept, closest first. Empties this instance. */
+        List<Node> sorted() {
+            Node[] out= new Node[size];
+            while (size > 0) {
+                out[size - 1]= nodes[slots[0]];
+                --size;
+                if (size > 0) siftDown(slots[size], dists[size]);
+            }
+            return Arrays.asList(out);
+        }
+    }
+}
@@ -40,6 +40,10 @@ public interface Model {
     /** Return the total distance traveled since the rescue stage started. */
     public int getDistanceTraveled();
     
+    /** Return the total number of Edge visits so far. It changes exactly
+     * when the number of visits of some Edge does. */
+    public int getVisits();
+    
     /** Return the current amount of gems collected. */
     public int getGems();
     
@@ -17,6 +17,13 @@ public class Node implements BoardElement {
     int gems; // Current amount of gems on this planet; always >= 0
     private HashSet<Edge> exits; // Edges leaving this Node
 
+    /* Once frozen, exitArray holds the Edges in exits sorted by the id of the
+     * neighbor they lead to, neighborArray[i] is that neighbor, and
+     * lengthArray[i] is the length of exitArray[i]. null until frozen. */
+    private Edge[] exitArray;
+    private Node[] neighborArray;
+    private int[] lengthArray;
+
     /** Constructor: a Node named name with ID id with no edges
      * leaving it, the given x and y coordinates, speed modifier sm, initial
      * amount of gems g, and loss rate lr. */
@@ -40,7 +47,8 @@ public class Node implements BoardElement {
     }
 
     /** Return a map of neighboring Nodes to the lengths of the Edges
-     * connecting them to this Node. */
+     * connecting them to this Node. This allocates a new map on every call;
+     * hot paths should use neighborCount, neighbor and edgeLength. */
     public HashMap<Node, Integer> getNeighbors() {
         HashMap<Node, Integer> neighbors= new HashMap<>();
         for (Edge e : exits) {
@@ -49,16 +57,84 @@ public class Node implements BoardElement {
         return neighbors;
     }
 
-    /** Add e to this Node's set of exits. */
+    /** Return the number of neighbors of this Node.
+     * Precondition: the Board containing this Node has been built. */
+    public int neighborCount() {
+        return neighborArray.length;
+    }
+
+    /** Return the i-th neighbor of this Node, where 0 <= i < neighborCount().
+     * Neighbors are ordered by id. Together with edgeLength(i) and exit(i),
+     * this allows iterating over neighbors without allocating:
+     *
+     *     for (int i= 0; i < n.neighborCount(); ++i)
+     *         visit(n.neighbor(i), n.edgeLength(i));
+     *
+     * Precondition: the Board containing this Node has been built. */
+    public Node neighbor(int i) {
+        return neighborArray[i];
+    }
+
+    /** Return the length of the Edge to neighbor(i).
+     * Precondition: the Board containing this Node has been built. */
+    public int edgeLength(int i) {
+        return lengthArray[i];
+    }
+
+    /** Return the Edge to neighbor(i).
+     * Precondition: the Board containing this Node has been built. */
+    public Edge exit(int i) {
+        return exitArray[i];
+    }
+
+    /** Return the i such that neighbor(i) has id id, or -1 if no neighbor
+     * does. Takes time logarithmic in neighborCount().
+     * Precondition: the Board containing this Node has been built. */
+    public int neighborIndex(long id) {
+        int lo= 0, hi= neighborArray.length - 1;
+        while (lo <= hi) {
+            int mid= (lo + hi) >>> 1;
+            int midId= neighborArray[mid].id;
+            if (midId < id) lo= mid + 1;
+            else if (midId > id) hi= mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /** Add e to this Node's set of exits.
+     * Precondition: this Node is not frozen. */
     void addExit(Edge e) {
+        if (exitArray != null)
+            throw new IllegalStateException("Node is frozen");
         exits.add(e);
     }
 
-    /** Remove e from this Node's set of exits. */
+    /** Remove e from this Node's set of exits.
+     * Precondition: this Node is not frozen. */
     void removeExit(Edge e) {
+        if (exitArray != null)
+            throw new IllegalStateException("Node is frozen");
         exits.remove(e);
     }
 
+    /** Freeze this Node's exits, building the arrays behind neighbor,
+     * edgeLength and exit. After this, exits can no longer change. */
+    void freeze() {
+        Edge[] es= exits.toArray(new Edge[exits.size()]);
+        Arrays.sort(es, (e1, e2) ->
+            Integer.compare(e1.getOther(this).id, e2.getOther(this).id));
+        Node[] ns= new Node[es.length];
+        int[] ls= new int[es.length];
+        for (int i= 0; i < es.length; ++i) {
+            ns[i]= es[i].getOther(this);
+            ls[i]= es[i].length;
+        }
+        neighborArray= ns;
+        lengthArray= ls;
+        exitArray= es;
+    }
+
     /** Return true iff r is connected to this Node. */
     public boolean isExit(Edge r) {
         return exits.contains(r);
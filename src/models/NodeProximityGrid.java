@@ -1,177 +1,209 @@
 package models;
 
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.ArrayList;
-import java.util.List;
-
-import utils.Utils;
+import java.util.NoSuchElementException;
 
 import java.awt.geom.Point2D;
 
 /** An instance maintains Nodes in a 2D rectangle and can return the closest Node
  * to a given Point. It maintains an internal set of rectangles containing Nodes
- * based on their coordinates. */
-public class NodeProximityGrid implements Iterable<Node> {
-    /* a 2D array(list) representing rectangles that contain a list of Nodes.
-     * [0][0] is the bottom-left rectangle. rs will always have at least one
-     * rectangle, and will always be rectangular (i.e. not ragged). */
-    private ArrayList<ArrayList<List<Node>>> rs;
-
+ * based on their coordinates.
+ *
+ * The rectangles (cells) are stored flat, in compressed sparse row form: the
+ * Nodes of cell c are in slots start[c]..start[c+1]-1 of three parallel
+ * arrays holding the Nodes and their x and y coordinates, so a query scans
+ * contiguous ints and allocates nothing. Cells are numbered row by row from
+ * the bottom-left one. Nodes added since the last query are laid out again
+ * before the next one. */
+public class NodeProximityGrid implements Iterable<Node>, SpatialIndex {
     /* The dimensions of an individual rectangle. */
     private static final int RECT_WIDTH= 64, RECT_HEIGHT= 64;
 
     /* The minimum x- and y-values of this NodeProximitySet. */
     private int x, y;
 
+    /* The number of rows and columns of cells; both at least 1. */
+    private final int rows, cols;
+
+    /* added[0..size-1] are the Nodes in the order they were added. */
+    private Node[] added;
+    private int size;
+
+    /* True iff the arrays below reflect every Node added. */
+    private volatile boolean built;
+
+    /* The Nodes of cell c are in slots start[c]..start[c+1]-1 of nodes, xs
+     * and ys, in the order they were added. start.length = rows*cols + 1. */
+    private int[] start;
+    private Node[] nodes;
+    private int[] xs;
+    private int[] ys;
+
     /** Constructor: a NodeProximityMap spanning the axis-aligned rectangle with
      * bottom-left coordinates (x, y) and the given dimensions. */
     public NodeProximityGrid(int x, int y, int width, int height) {
         this.x= x;
         this.y= y;
 
-        int w= width / RECT_WIDTH + 1;
-        int h= height / RECT_HEIGHT + 1;
-        rs= new ArrayList<>(h);
-        for (int i= 0; i < h; ++i) {
-            rs.add(new ArrayList<>(h));
-            for (int j= 0; j < w; ++j) {
-                rs.get(i).add(new LinkedList<Node>());
-            }
-        }
+        cols= width / RECT_WIDTH + 1;
+        rows= height / RECT_HEIGHT + 1;
+        added= new Node[16];
+        size= 0;
+        built= false;
     }
 
     /** Add Node n to this NodeProximityMap.
      * Precondition: n is within the bounds of this NodeProximityMap. */
-    public void addNode(Node n) {
-        int ri= (n.getY() - y) / RECT_HEIGHT;
-        int rj= (n.getX() - x) / RECT_WIDTH;
+    public synchronized void addNode(Node n) {
+        if (size == added.length)
+            added= Arrays.copyOf(added, 2 * size);
+        added[size]= n;
+        ++size;
+        built= false;
+    }
 
-        rs.get(ri).get(rj).add(n);
+    /** Lay out the Nodes added so far by cell, if that is not done yet. */
+    private void ensureBuilt() {
+        if (built) return;
+        synchronized (this) {
+            if (built) return;
+            int[] st= new int[rows * cols + 1];
+            int[] cell= new int[size];
+            for (int k= 0; k < size; ++k) {
+                cell[k]= (added[k].getY() - y) / RECT_HEIGHT * cols
+                    + (added[k].getX() - x) / RECT_WIDTH;
+                ++st[cell[k] + 1];
+            }
+            for (int c= 0; c < rows * cols; ++c)
+                st[c + 1]+= st[c];
+
+            // a stable counting sort, so each cell keeps the order of adds
+            int[] next= Arrays.copyOf(st, rows * cols);
+            nodes= new Node[size];
+            xs= new int[size];
+            ys= new int[size];
+            for (int k= 0; k < size; ++k) {
+                int s= next[cell[k]]++;
+                nodes[s]= added[k];
+                xs[s]= added[k].getX();
+                ys[s]= added[k].getY();
+            }
+            start= st;
+            built= true;
+        }
     }
 
-    /** Return the closest Node to p.
-     * Precondition: this map is not empty. */
+    /** Return the closest Node to p, or null if this map is empty.
+     *
+     * Rings of cells around the cell of p are searched outward until the
+     * closest Node found so far is nearer than anything outside the rings
+     * searched, so the answer is exact. */
+    @Override
     public Node getClosestNode(Point2D p) {
-        int ri= (int) (p.getY() - y) / RECT_HEIGHT;
-        int rj= (int) (p.getX() - x) / RECT_WIDTH;
-
-        if (ri >= rows())
-            ri= rows() - 1;
-        else if (ri < 0)
-            ri= 0;
-        
-        if (rj >= cols())
-            rj= cols() - 1;
-        else if (rj < 0)
-            rj= 0;
-        
-        Node n= closestOfList(rs.get(ri).get(rj), p);
-
-        int imin= ri - 1 >= 0 ? ri - 1 : 0;
-        int imax= ri + 1 < rows() ? ri + 1 : rows() - 1;
-        int jmin= rj - 1 >= 0 ? rj - 1 : 0;
-        int jmax= rj + 1 < cols() ? rj + 1 : cols() - 1;
-        do {
-            List<Node> ns= new LinkedList<Node>();
-            ns.add(n);
-            for (int i= imin; i <= imax; ++i) {
-                ns.add(closestOfList(rs.get(i).get(jmin), p));
-                ns.add(closestOfList(rs.get(i).get(jmax), p));
+        ensureBuilt();
+        if (nodes.length == 0)
+            return null;
+        double px= p.getX();
+        double py= p.getY();
+        int ri= clamp((int) Math.floor((py - y) / RECT_HEIGHT), rows);
+        int rj= clamp((int) Math.floor((px - x) / RECT_WIDTH), cols);
+
+        int best= -1;
+        double bestDist= Double.POSITIVE_INFINITY; // squared
+        for (int r= 0; ; ++r) {
+            int imin= ri - r, imax= ri + r, jmin= rj - r, jmax= rj + r;
+            if (imin < 0 && imax >= rows && jmin < 0 && jmax >= cols)
+                break; // every cell has been searched
+
+            // the bottom and top rows of the ring, then the sides between
+            for (int i= imin; i <= imax; i+= Math.max(1, imax - imin)) {
+                if (i < 0 || i >= rows) continue;
+                int hi= Math.min(jmax, cols - 1);
+                for (int j= Math.max(jmin, 0); j <= hi; ++j) {
+                    int s= closestInCell(i * cols + j, px, py, best, bestDist);
+                    if (s != best) {
+                        best= s;
+                        bestDist= dist2(s, px, py);
+                    }
+                }
             }
-            for (int j= jmin + 1; j < jmax; ++j) {
-                ns.add(closestOfList(rs.get(imin).get(j), p));
-                ns.add(closestOfList(rs.get(imax).get(j), p));
+            for (int j= jmin; j <= jmax && r > 0; j+= jmax - jmin) {
+                if (j < 0 || j >= cols) continue;
+                int hi= Math.min(imax - 1, rows - 1);
+                for (int i= Math.max(imin + 1, 0); i <= hi; ++i) {
+                    int s= closestInCell(i * cols + j, px, py, best, bestDist);
+                    if (s != best) {
+                        best= s;
+                        bestDist= dist2(s, px, py);
+                    }
+                }
             }
 
-            n= closestOfList(ns, p);
-
-            imin= imin - 1 >= 0 ? imin - 1 : imin;
-            imax= imax + 1 < rows() ? imax + 1 : imax;
-            jmin= jmin - 1 >= 0 ? jmin - 1 : jmin;
-            jmax= jmax + 1 < cols() ? jmax + 1 : jmax;
-        } while (n == null);
-        return n;
+            // any Node outside the rings searched is at least bound from p
+            double bound= Double.POSITIVE_INFINITY;
+            if (jmin > 0) bound= Math.min(bound, px - (x + jmin * RECT_WIDTH));
+            if (jmax < cols - 1)
+                bound= Math.min(bound, x + (jmax + 1) * RECT_WIDTH - px);
+            if (imin > 0) bound= Math.min(bound, py - (y + imin * RECT_HEIGHT));
+            if (imax < rows - 1)
+                bound= Math.min(bound, y + (imax + 1) * RECT_HEIGHT - py);
+            if (best >= 0 && bestDist <= bound * bound)
+                break;
+        }
+        return nodes[best];
     }
 
-    /** Return the Node in ns closest to (x, y) or null if ns is null/empty. */
-    private static Node closestOfList(List<Node> ns, Point2D p) {
-        if (ns.isEmpty())
-            return null;
-
-        Node closest= ns.get(0);
-        double dist= Double.MAX_VALUE;
-        for (Node n : ns) {
-            if (n != null) {
-                double nDist= Utils.distance(n.getX(), n.getY(),
-                    p.getX(), p.getY());
-                if (dist > nDist) {
-                    dist= nDist;
-                    closest= n;
-                }
+    /** Return the slot of the Node in cell c closest to (px, py) if it is
+     * closer than bestDist, the squared distance of slot best; otherwise
+     * return best. */
+    private int closestInCell(int c, double px, double py, int best,
+            double bestDist) {
+        for (int s= start[c]; s < start[c + 1]; ++s) {
+            double d= dist2(s, px, py);
+            if (d < bestDist) {
+                bestDist= d;
+                best= s;
             }
         }
-        return closest;
+        return best;
     }
-    
-    /** Return the number of rows in this grid. */
-    private int rows() {
-        return rs.size();
+
+    /** Return the squared distance between the Node in slot s and
+     * (px, py). */
+    private double dist2(int s, double px, double py) {
+        double dx= xs[s] - px;
+        double dy= ys[s] - py;
+        return dx * dx + dy * dy;
     }
-    
-    /** Return the number of columns in this grid. */
-    private int cols() {
-        return rs.get(0).size();
+
+    /** Return k clamped to 0..n-1. */
+    private static int clamp(int k, int n) {
+        return k < 0 ? 0 : k >= n ? n - 1 : k;
     }
 
     @Override
     public Iterator<Node> iterator() {
+        ensureBuilt();
         return new MapIterator();
     }
 
-    /** An instance enumerates all Nodes in this NodeProximityMap. */
+    /** An instance enumerates all Nodes in this NodeProximityMap, cell by
+     * cell. */
     private class MapIterator implements Iterator<Node> {
-        /* The current index whose Nodes are being iterated. */
-        private int ri, rj;
-
-        /* The current iterator getting Nodes. */
-        private Iterator<Node> iter;
-
-        /** Constructor: a MapIterator starting at rs[0][0]. */
-        public MapIterator() {
-            ri= 0;
-            rj= 0;
-            iter= rs.get(0).get(0).iterator();
-            ensureTotalEnumeration();
-        }
+        /* The Nodes being enumerated, and the slot of the next one. */
+        private final Node[] ns= nodes;
+        private int s= 0;
 
         @Override
         public boolean hasNext() {
-            return iter.hasNext();
+            return s < ns.length;
         }
 
         @Override
         public Node next() {
-            Node n= iter.next();
-            ensureTotalEnumeration();
-            return n;
-        }
-
-        /** Iff iter still has more elements, do nothing. Otherwise, cycle to
-         * the next List's iterator until all Nodes have been enumerated. */
-        private void ensureTotalEnumeration() {
-            while (!iter.hasNext() && ri < rs.size()) {
-                ++rj;
-                if (rj < cols()) {
-                    iter= rs.get(ri).get(rj).iterator();
-                } else {
-                    ++ri;
-                    if (ri < rows()) {
-                        rj= 0;
-                        iter= rs.get(ri).get(rj).iterator();
-                    }
-                }
-            }
+            if (s >= ns.length) throw new NoSuchElementException();
+            return ns[s++];
         }
     }
-}
\ No newline at end of file
+}
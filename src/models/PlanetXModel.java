@@ -2,18 +2,25 @@ package models;
 
 import java.awt.geom.Point2D;
 import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 import controllers.RescueStage;
 import controllers.ReturnStage;
 
 import static models.Model.Stage.*;
-import utils.Utils;
 
-/** An instance maintains the current state of a Planet X game. */
+/** An instance maintains the current state of a Planet X game.
+ *
+ * Time is simulated, in milliseconds. When moveTo starts the ship along an
+ * Edge, the time at which it arrives (and, if it cannot, the time at which it
+ * runs out of fuel) is computed at once and scheduled as an event; update
+ * advances the clock and handles the events that are due, in order. Between
+ * events, the distance traveled and the ship's location are functions of the
+ * clock, so update costs the same whatever the tick, and next to nothing
+ * while the ship is still. */
 public class PlanetXModel implements Model, Controllable {
-    private static final double TOLERANCE= 1e-6; // floating-point tolerance
-
     private Stage stage; // The current stage of the model
     private final Board board; // The Board associated with this instance 
 
@@ -24,7 +31,12 @@ public class PlanetXModel implements Model, Controllable {
 
     private int distRemaining; // Distance left to return. < 0 => failed solution.
     private int distTraveled; // Cumulative distance traveled by the ship
+    private volatile int visits; // Number of departures along any Edge
     private static final int BASE_SPEED= 100; // Base speed of ship (per second)
+
+    private long clock; // Simulated time since the game was created, in ms
+    private long departTime; // Time the ship left shipNode along shipEdge
+    private final PriorityQueue<Event> events; // Scheduled events, by time
     
     private int gems; // The current amount of gems that the ship holds; >= 0
     private int score; // The cumulative score
@@ -34,8 +46,21 @@ public class PlanetXModel implements Model, Controllable {
     private boolean rescueSuccessful; // True if rescue ended successfully
     private boolean returnSuccessful; // True if return ended successfully
 
-    /** Constructor: a new game with Board b. */
+    private final boolean instant; // True iff moves complete without ticks
+
+    /** Constructor: a new game with Board b, in which the ship moves as
+     * update is called. */
     public PlanetXModel(Board b) {
+        this(b, false);
+    }
+
+    /** Constructor: a new game with Board b. If instant is true, moveTo
+     * completes each move at once, with the same distance, scoring and fuel
+     * accounting as the ticks of update, so the game needs no ticking thread.
+     * A failure then aborts the game: moveTo throws an AbortException and
+     * getFailMessage tells why. */
+    public PlanetXModel(Board b, boolean instant) {
+        this.instant= instant;
         stage= NONE;
         board= b;
 
@@ -43,6 +68,9 @@ public class PlanetXModel implements Model, Controllable {
         shipLocation= new Point2D.Double(shipNode.getX(), shipNode.getY());
         shipEdge= null;
         distToNext= 0;
+        clock= 0;
+        departTime= 0;
+        events= new PriorityQueue<Event>();
 
         distTraveled= 0;
         distRemaining= 0;
@@ -74,8 +102,8 @@ public class PlanetXModel implements Model, Controllable {
     @Override
     public Set<Node> getNodes() {
         HashSet<Node> ns= new HashSet<>();
-        for (Node n : board.getNodes())
-            ns.add(n);
+        for (int i= 0; i < board.getNodeCount(); ++i)
+            ns.add(board.getNode(i));
         return ns;
     }
     
@@ -114,45 +142,85 @@ public class PlanetXModel implements Model, Controllable {
         return distTraveled;
     }
     
+    @Override
+    public int getVisits() {
+        return visits;
+    }
+
     @Override
     public int getScore() {
         return score;
     }
     
+    /** Return true iff moves in this game complete without ticks. */
+    public boolean isInstant() {
+        return instant;
+    }
+
+    /** Return the reason the solution failed, or null if it has not. */
+    public String getFailMessage() {
+        return failMessage;
+    }
+
     @Override
     public synchronized void update(int tick) throws SolutionFailedException {
         if (failMessage != null) {
             throw new SolutionFailedException(failMessage);
         }
 
-        if (shipEdge != null) {
-            Node shipNext= shipEdge.getOther(shipNode);
-            double oldDist= Utils.distance(
-                shipLocation.x, shipLocation.y,
-                shipNext.getX(), shipNext.getY());
-            double travelDist= BASE_SPEED * (tick / 1e3);
-            double totalDiff= oldDist - shipEdge.length;
-            if (totalDiff >= -TOLERANCE)
-                travelDist+= totalDiff + TOLERANCE;
-            if (travelDist > oldDist) {
-                elapseTime(distToNext);
-                distToNext= 0;
+        advance(clock + tick);
+    }
+
+    /** Advance the clock to time t, handling every event due by then in
+     * order of time. Throw a SolutionFailedException if the ship runs out of
+     * fuel on the way; the clock then stops at that time. */
+    private void advance(long t) throws SolutionFailedException {
+        while (!events.isEmpty() && events.peek().time <= t) {
+            Event e= events.poll();
+            clock= e.time;
+            elapseUntil(clock);
+            if (e.arrival) {
                 shipArrive();
                 notifyAll();
-            } else {
-                double newDist= oldDist - travelDist;
-                double r= newDist / shipEdge.length;
-                shipLocation.x= r * shipNode.getX() + (1 - r) * shipNext.getX();
-                shipLocation.y= r * shipNode.getY() + (1 - r) * shipNext.getY();
-                int diff= distToNext - (int) newDist;
-                if (diff > 0) {
-                    distToNext-= diff;
-                    elapseTime(diff);
-                }
             }
         }
+        clock= t;
+        elapseUntil(clock);
+        placeShip();
+    }
+
+    /** Return the simulated time the ship takes to travel distance d. */
+    private static long travelTime(int d) {
+        return (d * 1000L + BASE_SPEED - 1) / BASE_SPEED;
+    }
+
+    /** Elapse the part of shipEdge that the ship has covered by time t and
+     * not yet accounted for. Precondition: t is at most the arrival time. */
+    private void elapseUntil(long t) throws SolutionFailedException {
+        if (shipEdge == null) return;
+        int covered= (int) Math.min(shipEdge.length,
+            (t - departTime) * BASE_SPEED / 1000);
+        int diff= covered - (shipEdge.length - distToNext);
+        if (diff > 0) {
+            distToNext-= diff;
+            elapseTime(diff);
+        }
     }
-    
+
+    /** Set shipLocation to where the ship is at the current time. */
+    private void placeShip() {
+        if (shipEdge == null) {
+            shipLocation.x= shipNode.getX();
+            shipLocation.y= shipNode.getY();
+            return;
+        }
+        Node shipNext= shipEdge.getOther(shipNode);
+        double r= Math.min(1.0, (clock - departTime) * (BASE_SPEED / 1e3)
+            / shipEdge.length);
+        shipLocation.x= (1 - r) * shipNode.getX() + r * shipNext.getX();
+        shipLocation.y= (1 - r) * shipNode.getY() + r * shipNext.getY();
+    }
+
     /** Simulate time passing based on the given distance.
      * Rescue: score decreases by one point per distance traveled
      * Return: remaining distance decreases */
@@ -173,9 +241,10 @@ public class PlanetXModel implements Model, Controllable {
      * Precondition: the ship is moving between two Nodes. */
     private void shipArrive() {
         shipNode= shipEdge.getOther(shipNode);
-        shipLocation.x= shipNode.getX();
-        shipLocation.y= shipNode.getY();
         shipEdge= null;
+        distToNext= 0;
+        events.clear();
+        placeShip();
     }
 
     @Override
@@ -190,12 +259,10 @@ public class PlanetXModel implements Model, Controllable {
 
     @Override
     public NodeStatus[] neighbors() {
-        Set<Node> nodes= shipNode.getNeighbors().keySet();
-        NodeStatus[] ns = new NodeStatus[nodes.size()];
-        int i= 0;
-        for (Node n : nodes) {
+        NodeStatus[] ns = new NodeStatus[shipNode.neighborCount()];
+        for (int i= 0; i < ns.length; ++i) {
+            Node n= shipNode.neighbor(i);
             ns[i]= new NodeStatus(n.getId(), n.getName(), board.getPing(n));
-            ++i;
         }
         return ns;
     }
@@ -214,12 +281,31 @@ public class PlanetXModel implements Model, Controllable {
     public Node getEarth() {
         return board.getEarth();
     }
+
+    @Override
+    public int distanceToEarth(Node n) {
+        return board.getEarthTree().distance(n);
+    }
+
+    @Override
+    public List<Node> pathToEarth(Node n) {
+        return board.getEarthTree().pathToRoot(n);
+    }
     
-    /** When called, blocks until the ship has moved from shipNode to n. */
-    private synchronized void waitUntilMoved(Node n) {
-        shipEdge= shipNode.getConnect(n);
-        shipEdge.visit();
-        distToNext= shipEdge.length;
+    /** When called, blocks until the ship has moved from shipNode along
+     * exit, an Edge of shipNode. An instant game instead advances the clock
+     * straight to the arrival. */
+    private synchronized void waitUntilMoved(Edge exit) {
+        depart(exit);
+        if (instant) {
+            try {
+                while (shipEdge != null)
+                    advance(events.peek().time);
+            } catch (SolutionFailedException e) {
+                waitUntilAbort();
+            }
+            return;
+        }
         while (shipEdge != null) {
             try {
                 wait();
@@ -227,19 +313,34 @@ public class PlanetXModel implements Model, Controllable {
         }
     }
 
+    /** Start the ship along exit, an Edge of shipNode, now, and schedule its
+     * arrival ---or, if it has too little fuel to get there, the moment it
+     * runs out: after distance distRemaining + 1, as elapseTime fails only
+     * once distRemaining is negative. */
+    private void depart(Edge exit) {
+        shipEdge= exit;
+        shipEdge.visit();
+        ++visits;
+        distToNext= shipEdge.length;
+        departTime= clock;
+        events.add(new Event(departTime + travelTime(shipEdge.length), true));
+        if (stage != RESCUE && shipEdge.length > distRemaining) {
+            events.add(new Event(
+                departTime + travelTime(distRemaining + 1), false));
+        }
+    }
+
     @Override
     public synchronized void moveTo(int id) {
         if (abort) throw new AbortException();
         if (failMessage != null) waitUntilAbort();
             
-        for (Node n : shipNode.getNeighbors().keySet()) {
-            if (n.getId() == id) {
-                waitUntilMoved(n);
-                return;
-            }
+        int i= shipNode.neighborIndex(id);
+        if (i < 0) {
+            failMessage= "tried to call moveTo to a non-adjacent ID.";
+            waitUntilAbort();
         }
-        failMessage= "tried to call moveTo to a non-adjacent ID.";
-        waitUntilAbort();
+        waitUntilMoved(shipNode.exit(i));
     }
 
     @Override
@@ -247,12 +348,13 @@ public class PlanetXModel implements Model, Controllable {
         if (abort) throw new AbortException();
         if (failMessage != null) waitUntilAbort();
 
-        if (!shipNode.isConnectedTo(n)) {
+        int i= shipNode.neighborIndex(n.getId());
+        if (i < 0) {
             failMessage= "tried to call moveTo to a non-adjacent Node.";
             waitUntilAbort();
         }
 
-        waitUntilMoved(n);
+        waitUntilMoved(shipNode.exit(i));
 
         int g= n.takeGems();
         gems+= g;
@@ -328,6 +430,16 @@ public class PlanetXModel implements Model, Controllable {
             public int getDistanceLeft() {
                 return PlanetXModel.this.getDistanceLeft();
             }
+
+            @Override
+            public int distanceToEarth(Node n) {
+                return PlanetXModel.this.distanceToEarth(n);
+            }
+
+            @Override
+            public List<Node> pathToEarth(Node n) {
+                return PlanetXModel.this.pathToEarth(n);
+            }
         };
     }
 
@@ -365,8 +477,10 @@ public class PlanetXModel implements Model, Controllable {
         return returnSuccessful;
     }
     
-    /** Block until the game is aborted, then throws an AbortException. */
+    /** Block until the game is aborted, then throws an AbortException. An
+     * instant game has no other thread to abort it, so it aborts at once. */
     private synchronized void waitUntilAbort() throws AbortException {
+        if (instant) abort();
         while (!abort) {
             try {
                 wait();
@@ -385,4 +499,22 @@ public class PlanetXModel implements Model, Controllable {
             notifyAll();
         }
     }
+
+    /** An instance is something scheduled to happen to the moving ship. */
+    private static class Event implements Comparable<Event> {
+        private final long time; // When this event happens
+        private final boolean arrival; // True: arrival; false: out of fuel
+
+        /** Constructor: an arrival at time t if arrival is true, and the
+         * ship running out of fuel at time t otherwise. */
+        Event(long t, boolean arrival) {
+            time= t;
+            this.arrival= arrival;
+        }
+
+        @Override
+        public int compareTo(Event e) {
+            return Long.compare(time, e.time);
+        }
+    }
 }
\ No newline at end of file
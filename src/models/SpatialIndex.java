@@ -0,0 +1,10 @@
+package models;
+
+import java.awt.geom.Point2D;
+
+/** An instance can find the Node closest to a point among a fixed set of
+ * Nodes. A Board answers getClosestNode with one of these. */
+public interface SpatialIndex {
+    /** Return the closest Node to p, or null if there are no Nodes. */
+    public Node getClosestNode(Point2D p);
+}
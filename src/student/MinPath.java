@@ -7,6 +7,7 @@ import java.util.List;
 
 import models.Edge;
 import models.Node;
+import utils.IdHeap;
 
 /** This class contains Dijkstra's shortest-path algorithm and some other methods. */
 public class MinPath {
@@ -16,7 +17,7 @@ public class MinPath {
      * Note: The empty list is NOT "null"; it is a list with 0 elements. */
     public static List<Node> minPath(Node first, Node last) {
         /* TODO Read note A7 FAQs on the course piazza for ALL details. */
-        Heap<Node> F= new Heap<Node>(); // As in lecture slides
+        IdHeap<Node> F= new IdHeap<Node>(Node::getId); // As in lecture slides
 
         // map contains an entry for each node in S or F. Thus, |map| = |S| + |F|.
         // For each such node, the value part in map contains the shortest known
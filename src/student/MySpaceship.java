@@ -132,9 +132,9 @@ public class MySpaceship implements Spaceship {
     		Heap<Node> maxGemNodes = gemChanger(planetW);
     		planetC = state.getCurrentNode();
     		Node toVisitNode = maxGemNodes.poll();    //this node will carry the most gem in planetW's vicinity
-    		List<Node> minPath = MinPath.minPath(toVisitNode, mEarth);   //minPath from nodetovisit to Earth 
+    		List<Node> minPath = state.pathToEarth(toVisitNode);   //minPath from nodetovisit to Earth 
     		minPath.add(0,planetW);
-    		List<Node> minPathC = MinPath.minPath(planetW, mEarth);     //current minPath to earth 
+    		List<Node> minPathC = state.pathToEarth(planetW);     //current minPath to earth 
 
        	if(!checkFuel(state,minPathC, minPath)) {      //compare fuel stat wiht Max of minPathC, or minPath 
         	for(int i = 1; i<minPathC.size(); i++) {   //when return false, will move the spaceship back to earth 
@@ -153,7 +153,7 @@ public class MySpaceship implements Spaceship {
        	if(visited.containsKey(planetW)) {           
        		HashMap<Node, Boolean>map2 = new HashMap<Node, Boolean>();
        		LinkedList<Node> outPath = (LinkedList<Node>) outCycle(planetW, map2);  //path that contains more gems
-       		List<Node> minPathOut = MinPath.minPath(outPath.getLast(), mEarth);  //min path to earth if taken the new path
+       		List<Node> minPathOut = state.pathToEarth(outPath.getLast());  //min path to earth if taken the new path
        		minPathOut.addAll(0, outPath);  //list that containst the total path to travel from this iteration 
        		
            	if(!checkFuel(state,minPathOut,minPath)) {     //if fuel is less than any of the path, then better return to base
@@ -0,0 +1,133 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/** An instance is a monotone min-priority queue of distinct int ids with int
+ *  keys (Dial's bucket queue), for Dijkstra's algorithm on graphs whose edge
+ *  lengths are positive ints no larger than some bound C.
+ *
+ *  Monotone means that every key inserted, or changed to, is in the range
+ *  [k, k + C], where k is the key most recently polled (0 before the first
+ *  poll). Under that condition the queue needs only C + 1 buckets, used
+ *  circularly, and insert and changeKey take constant time while poll takes
+ *  amortized constant time.
+ *
+ *  Ids must be in 0..n-1, where n is given to the constructor. Each bucket is
+ *  a doubly-linked list threaded through int arrays, so no operation
+ *  allocates. */
+public class BucketQueue {
+    /* head[b] is the first id in bucket b, or -1 if the bucket is empty. */
+    private final int[] head;
+
+    /* next[v] and prev[v] link id v into its bucket's list (-1 at the ends). */
+    private final int[] next;
+    private final int[] prev;
+
+    /* key[v] is the key of id v. Meaningful only while v is in the queue. */
+    private final int[] key;
+
+    /* in[v] is true iff id v is in the queue. */
+    private final boolean[] in;
+
+    /* The number of ids in the queue. */
+    private int size;
+
+    /* The smallest key that may be in the queue; all buckets for smaller keys
+     * are empty. */
+    private int cursor;
+
+    /** Constructor: an empty queue for ids 0..n-1 with keys whose spread is
+     *  at most c. Precondition: n >= 0, c >= 0. */
+    public BucketQueue(int n, int c) {
+        head= new int[c + 1];
+        Arrays.fill(head, -1);
+        next= new int[n];
+        prev= new int[n];
+        key= new int[n];
+        in= new boolean[n];
+    }
+
+    /** Return the number of ids in this queue. */
+    public int size() {
+        return size;
+    }
+
+    /** Return true iff this queue is empty. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Return true iff id v is in this queue. */
+    public boolean contains(int v) {
+        return in[v];
+    }
+
+    /** Insert id v with key k. Throw an IllegalArgumentException if v is
+     *  already in the queue or if k is out of the monotone range. */
+    public void insert(int v, int k) {
+        if (in[v])
+            throw new IllegalArgumentException("v is already in the queue");
+        checkKey(k);
+        key[v]= k;
+        in[v]= true;
+        link(v);
+        ++size;
+    }
+
+    /** Change the key of id v to k. Throw an IllegalArgumentException if v
+     *  is not in the queue or if k is out of the monotone range. */
+    public void changeKey(int v, int k) {
+        if (!in[v])
+            throw new IllegalArgumentException("v is not in the queue");
+        checkKey(k);
+        unlink(v);
+        key[v]= k;
+        link(v);
+    }
+
+    /** Remove and return an id with the smallest key. Throw a
+     *  NoSuchElementException if the queue is empty. */
+    public int poll() {
+        if (size == 0) throw new NoSuchElementException("queue is empty");
+        while (head[cursor % head.length] == -1)
+            ++cursor;
+        int v= head[cursor % head.length];
+        unlink(v);
+        in[v]= false;
+        --size;
+        return v;
+    }
+
+    /** Return the key of id v. Precondition: v is in the queue. */
+    public int key(int v) {
+        return key[v];
+    }
+
+    /** Throw an IllegalArgumentException if k is not a legal key now. */
+    private void checkKey(int k) {
+        if (k < cursor || k - cursor >= head.length)
+            throw new IllegalArgumentException("key " + k + " out of range ["
+                + cursor + ", " + (cursor + head.length - 1) + "]");
+    }
+
+    /** Push id v onto the front of the bucket for key[v]. */
+    private void link(int v) {
+        int b= key[v] % head.length;
+        prev[v]= -1;
+        next[v]= head[b];
+        if (head[b] != -1)
+            prev[head[b]]= v;
+        head[b]= v;
+    }
+
+    /** Remove id v from its bucket. */
+    private void unlink(int v) {
+        if (prev[v] != -1)
+            next[prev[v]]= next[v];
+        else
+            head[key[v] % head.length]= next[v];
+        if (next[v] != -1)
+            prev[next[v]]= prev[v];
+    }
+}
@@ -0,0 +1,92 @@
+package utils;
+
+import java.util.Arrays;
+
+import models.CsrGraph;
+
+/** Dijkstra's algorithm on a CsrGraph, shared by the searches of MinPath,
+ * ShortestPathTree and DistanceMatrix. They differ only in the Frontier
+ * they use and in where they stop. */
+final class Dijkstra {
+    /** The distance of a node that has not been reached. */
+    static final int UNREACHABLE= Integer.MAX_VALUE;
+
+    /** Cannot be instantiated. */
+    private Dijkstra() {}
+
+    /** The frontier set F of a search: the nodes reached but not settled,
+     * keyed by their distances. */
+    interface Frontier {
+        /** Return true iff F is empty. */
+        boolean isEmpty();
+
+        /** Remove and return a node of F with the smallest key. */
+        int poll();
+
+        /** Add node v to F with distance d. */
+        void insert(int v, int d);
+
+        /** Lower the distance of node v, which is in F, to d. */
+        void decrease(int v, int d);
+    }
+
+    /** Return a Frontier kept in F. */
+    static Frontier heap(IntHeap F) {
+        return new Frontier() {
+            public boolean isEmpty() { return F.isEmpty(); }
+            public int poll() { return F.poll(); }
+            public void insert(int v, int d) { F.insert(v, d); }
+            public void decrease(int v, int d) { F.changePriority(v, d); }
+        };
+    }
+
+    /** Return a Frontier kept in F. */
+    static Frontier buckets(BucketQueue F) {
+        return new Frontier() {
+            public boolean isEmpty() { return F.isEmpty(); }
+            public int poll() { return F.poll(); }
+            public void insert(int v, int d) { F.insert(v, d); }
+            public void decrease(int v, int d) { F.changeKey(v, d); }
+        };
+    }
+
+    /** Search g from node first with frontier F until node last is polled,
+     * or until every node reachable from first is settled if last is -1.
+     * Set dist[v] to the length of the shortest path found from first to v,
+     * or to UNREACHABLE if v was not reached, and prev[v] to the node before
+     * v on it: the neighbor with the smallest id among those on such a
+     * path, and -1 for first. prev is left unchanged for nodes not reached.
+     * Return true iff last was polled.
+     *
+     * Precondition: F is empty, and dist and prev have g.nodeCount()
+     * entries. */
+    static boolean search(CsrGraph g, int first, int last, int[] dist,
+            int[] prev, Frontier F) {
+        Arrays.fill(dist, UNREACHABLE);
+        F.insert(first, 0);
+        dist[first]= 0;
+        prev[first]= -1;
+        while (!F.isEmpty()) {
+            int f= F.poll();
+            if (f == last) return true;
+            int fDist= dist[f];
+
+            for (int i= g.begin(f); i < g.end(f); ++i) { // for each neighbor w of f
+                int w= g.target(i);
+                int newWdist= fDist + g.weight(i);
+                if (dist[w] == UNREACHABLE) { // if w not in S or F
+                    dist[w]= newWdist;
+                    prev[w]= f;
+                    F.insert(w, newWdist);
+                } else if (newWdist < dist[w]) {
+                    dist[w]= newWdist;
+                    prev[w]= f;
+                    F.decrease(w, newWdist);
+                } else if (newWdist == dist[w] && f < prev[w]) {
+                    prev[w]= f;
+                }
+            }
+        }
+        return last == -1;
+    }
+}
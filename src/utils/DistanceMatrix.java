@@ -0,0 +1,174 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import models.CsrGraph;
+import models.Node;
+
+/** An instance holds the length of a shortest path between every pair of
+ * nodes of a CsrGraph, indexed by Node id. It is computed by running
+ * Dijkstra's algorithm once per source, with the sources split among the
+ * threads of a ForkJoinPool.
+ *
+ * The n x n distances are stored as ints, row by row, either in one array
+ * (compute(g)) or in a file mapped into memory (compute(g, file)), which
+ * lets boards too large for the Java heap page rows in and out as needed.
+ * Lookups take constant time. */
+public class DistanceMatrix {
+    /** The distance between two nodes that are not connected. */
+    public static final int UNREACHABLE= Integer.MAX_VALUE;
+
+    /* The number of sources handled by one task without splitting it. */
+    private static final int SOURCES_PER_TASK= 16;
+
+    /* The most bytes mapped by one buffer. */
+    private static final long MAX_CHUNK_BYTES= Integer.MAX_VALUE;
+
+    /* The number of nodes. */
+    private final int n;
+
+    /* The distances in row-major order, if they are kept on the heap;
+     * otherwise null. */
+    private final int[] data;
+
+    /* If the distances are memory-mapped, chunks[c] holds rows
+     * c*rowsPerChunk .. (c+1)*rowsPerChunk-1; otherwise null. */
+    private final IntBuffer[] chunks;
+    private final int rowsPerChunk;
+
+    /** Constructor: an empty matrix for n nodes, kept on the heap. */
+    private DistanceMatrix(int n) {
+        if ((long) n * n > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("too many nodes for an "
+                + "in-memory matrix: " + n + "; map it to a file instead");
+        this.n= n;
+        data= new int[n * n];
+        chunks= null;
+        rowsPerChunk= n;
+    }
+
+    /** Constructor: an empty matrix for n nodes, mapped to file f. */
+    private DistanceMatrix(int n, File f) throws IOException {
+        this.n= n;
+        data= null;
+        rowsPerChunk= (int) Math.max(1,
+            Math.min(n, MAX_CHUNK_BYTES / (4L * Math.max(n, 1))));
+        int c= n == 0 ? 0 : (n + rowsPerChunk - 1) / rowsPerChunk;
+        chunks= new IntBuffer[c];
+        try (RandomAccessFile raf= new RandomAccessFile(f, "rw");
+                FileChannel ch= raf.getChannel()) {
+            raf.setLength(4L * n * n);
+            for (int k= 0; k < c; ++k) {
+                long rows= Math.min(rowsPerChunk, n - (long) k * rowsPerChunk);
+                chunks[k]= ch.map(FileChannel.MapMode.READ_WRITE,
+                    4L * n * k * rowsPerChunk, 4L * n * rows)
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+            }
+        }
+    }
+
+    /** Return the distance matrix of g, kept on the heap and computed in
+     * the common ForkJoinPool. Precondition: g has at most 46340 nodes. */
+    public static DistanceMatrix compute(CsrGraph g) {
+        return compute(g, ForkJoinPool.commonPool());
+    }
+
+    /** Return the distance matrix of g, kept on the heap and computed in
+     * pool. Precondition: g has at most 46340 nodes. */
+    public static DistanceMatrix compute(CsrGraph g, ForkJoinPool pool) {
+        DistanceMatrix m= new DistanceMatrix(g.nodeCount());
+        pool.invoke(m.new Rows(g, 0, g.nodeCount()));
+        return m;
+    }
+
+    /** Return the distance matrix of g, stored in file f (which is created
+     * or overwritten, and is left in place) and computed in the common
+     * ForkJoinPool. The file takes 4 * n * n bytes, in native byte order. */
+    public static DistanceMatrix compute(CsrGraph g, File f) {
+        return compute(g, f, ForkJoinPool.commonPool());
+    }
+
+    /** Return the distance matrix of g, stored in file f and computed in
+     * pool. See compute(CsrGraph, File). */
+    public static DistanceMatrix compute(CsrGraph g, File f,
+            ForkJoinPool pool) {
+        DistanceMatrix m;
+        try {
+            m= new DistanceMatrix(g.nodeCount(), f);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map " + f, e);
+        }
+        pool.invoke(m.new Rows(g, 0, g.nodeCount()));
+        return m;
+    }
+
+    /** Return the number of nodes in this matrix. */
+    public int size() {
+        return n;
+    }
+
+    /** Return the length of a shortest path between the nodes with ids u
+     * and v, or UNREACHABLE if there is none. */
+    public int distance(int u, int v) {
+        if (data != null)
+            return data[u * n + v];
+        return chunks[u / rowsPerChunk].get((u % rowsPerChunk) * n + v);
+    }
+
+    /** Return the length of a shortest path between a and b, or
+     * UNREACHABLE if there is none. */
+    public int distance(Node a, Node b) {
+        return distance(a.getId(), b.getId());
+    }
+
+    /** Store dist as row u of this matrix. */
+    private void setRow(int u, int[] dist) {
+        if (data != null) {
+            System.arraycopy(dist, 0, data, u * n, n);
+        } else {
+            IntBuffer b= chunks[u / rowsPerChunk].duplicate();
+            b.position((u % rowsPerChunk) * n);
+            b.put(dist);
+        }
+    }
+
+    /** An instance computes the rows of this matrix for sources lo..hi-1,
+     * splitting the range in half until it is small. */
+    @SuppressWarnings("serial")
+    private class Rows extends RecursiveAction {
+        private final CsrGraph g;
+        private final int lo, hi;
+
+        /** Constructor: a task for the rows of sources lo..hi-1 of g. */
+        Rows(CsrGraph g, int lo, int hi) {
+            this.g= g;
+            this.lo= lo;
+            this.hi= hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > SOURCES_PER_TASK) {
+                int mid= (lo + hi) >>> 1;
+                invokeAll(new Rows(g, lo, mid), new Rows(g, mid, hi));
+                return;
+            }
+            // the arrays and heap are reused for every source of this task
+            int[] dist= new int[n];
+            int[] prev= new int[n]; // filled by the search, but not needed
+            Dijkstra.Frontier F= Dijkstra.heap(new IntHeap(n));
+            for (int s= lo; s < hi; ++s) {
+                Dijkstra.search(g, s, -1, dist, prev, F);
+                setRow(s, dist);
+            }
+        }
+    }
+}
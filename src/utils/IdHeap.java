@@ -0,0 +1,79 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/** An instance is a min-heap of distinct values of type V with priorities of
+ *  type double, backed by an IntHeap. Each value is identified by a dense,
+ *  nonnegative int id (e.g. Node::getId), which replaces the HashMap that
+ *  Heap uses to track positions.
+ *
+ *  It offers the same operations as Heap, so it can be used in its place
+ *  wherever the values have such ids. Two different values must never have
+ *  the same id. */
+public class IdHeap<V> {
+    /* The function giving the id of a value. */
+    private final ToIntFunction<V> idOf;
+
+    /* The heap of ids of the values in this heap. */
+    private final IntHeap heap;
+
+    /* values[i] is the value with id i if it is in this heap. */
+    private Object[] values;
+
+    /** Constructor: an empty heap of values whose ids are given by id. */
+    public IdHeap(ToIntFunction<V> id) {
+        this(id, 10, IntHeap.DEFAULT_ARITY);
+    }
+
+    /** Constructor: an empty heap of values whose ids are given by id, sized
+     *  for ids 0..n-1, in which every element has at most arity children. */
+    public IdHeap(ToIntFunction<V> id, int n, int arity) {
+        idOf= id;
+        heap= new IntHeap(n, arity);
+        values= new Object[Math.max(n, 1)];
+    }
+
+    /** Insert v with priority p into the heap.
+     *  Throw an IllegalArgumentException if v is already in the heap. */
+    public void insert(V v, double p) {
+        int i= idOf.applyAsInt(v);
+        heap.insert(i, p);
+        if (i >= values.length)
+            values= Arrays.copyOf(values, Math.max(2 * values.length, i + 1));
+        values[i]= v;
+    }
+
+    /** Return the size of this heap. This operation takes constant time. */
+    public int size() {
+        return heap.size();
+    }
+
+    /** Return true iff v is in this heap. */
+    public boolean contains(V v) {
+        return heap.contains(idOf.applyAsInt(v));
+    }
+
+    /** Return the value of this heap with lowest priority. Do not change the
+     *  heap. Throw a NoSuchElementException if the heap is empty. */
+    @SuppressWarnings("unchecked")
+    public V peek() {
+        return (V) values[heap.peek()];
+    }
+
+    /** Remove and return the element of this heap with lowest priority.
+     *  Throw a NoSuchElementException if the heap is empty. */
+    @SuppressWarnings("unchecked")
+    public V poll() {
+        int i= heap.poll();
+        V v= (V) values[i];
+        values[i]= null;
+        return v;
+    }
+
+    /** Change the priority of value v to p.
+     *  Throw an IllegalArgumentException if v is not in the heap. */
+    public void changePriority(V v, double p) {
+        heap.changePriority(idOf.applyAsInt(v), p);
+    }
+}
@@ -0,0 +1,209 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/** An instance is an indexed min-heap of distinct int ids with priorities of
+ *  type double. The heap is a d-ary tree kept in parallel primitive arrays,
+ *  and the position of each id is kept in an array indexed by id, so no
+ *  objects are allocated by insert, poll, or changePriority.
+ *
+ *  Ids are expected to be dense, e.g. the ids 0..n-1 of the Nodes of a Board.
+ *  The heap grows as needed if a larger id is inserted. */
+public class IntHeap {
+    /** The arity used by the constructor that does not specify one. */
+    public static final int DEFAULT_ARITY= 4;
+
+    /** Class Invariant:
+     *   1. ids[0..size-1] represents a complete d-ary tree. ids[0] is the root;
+     *      For each k, ids[d*k+1..d*k+d] are the children of ids[k].
+     *      If k != 0, ids[(k-1)/d] (using integer division) is the parent of ids[k].
+     *
+     *   2. For k in 0..size-1, prio[k] is the priority of ids[k].
+     *
+     *   3. The ids in ids[0..size-1] are all different.
+     *
+     *   4. For k in 1..size-1, prio[k] >= (the priority of ids[k]'s parent).
+     *
+     *   pos and the tree are in sync, meaning:
+     *
+     *   5. if id v is in ids[k], then pos[v] = k.
+     *
+     *   6. if id v is not in the heap and v < pos.length, then pos[v] = -1.
+     */
+    private int[] ids;
+    private double[] prio;
+    private int[] pos;
+    private int size;
+    private final int d;
+
+    /** Constructor: an empty heap for ids 0..n-1 with arity DEFAULT_ARITY. */
+    public IntHeap(int n) {
+        this(n, DEFAULT_ARITY);
+    }
+
+    /** Constructor: an empty heap for ids 0..n-1 in which every element has
+     *  at most arity children. Precondition: n >= 0, arity >= 2. */
+    public IntHeap(int n, int arity) {
+        if (arity < 2)
+            throw new IllegalArgumentException("arity must be at least 2");
+        d= arity;
+        int c= Math.max(n, 1);
+        ids= new int[c];
+        prio= new double[c];
+        pos= new int[c];
+        Arrays.fill(pos, -1);
+    }
+
+    /** Insert id v with priority p into the heap.
+     *  Throw an IllegalArgumentException if v is negative or already in the
+     *  heap. The time is logarithmic in the size of the heap, except when the
+     *  arrays must grow. */
+    public void insert(int v, double p) {
+        if (v < 0)
+            throw new IllegalArgumentException("negative id " + v);
+        if (v >= pos.length) {
+            int old= pos.length;
+            pos= Arrays.copyOf(pos, Math.max(2 * old, v + 1));
+            Arrays.fill(pos, old, pos.length, -1);
+        } else if (pos[v] >= 0) {
+            throw new IllegalArgumentException("v is already in the heap");
+        }
+        if (size == ids.length) {
+            ids= Arrays.copyOf(ids, 2 * size);
+            prio= Arrays.copyOf(prio, 2 * size);
+        }
+        ids[size]= v;
+        prio[size]= p;
+        pos[v]= size;
+        size= size + 1;
+        bubbleUp(size - 1);
+    }
+
+    /** Return the size of this heap. This operation takes constant time. */
+    public int size() {
+        return size;
+    }
+
+    /** Return true iff this heap is empty. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Return true iff id v is in this heap. This operation takes constant
+     *  time. */
+    public boolean contains(int v) {
+        return v >= 0 && v < pos.length && pos[v] >= 0;
+    }
+
+    /** Return the id of this heap with lowest priority. Do not change the
+     *  heap. Throw a NoSuchElementException if the heap is empty. */
+    public int peek() {
+        if (size <= 0) throw new NoSuchElementException("heap is empty");
+        return ids[0];
+    }
+
+    /** Return the lowest priority in this heap. Do not change the heap.
+     *  Throw a NoSuchElementException if the heap is empty. */
+    public double peekPriority() {
+        if (size <= 0) throw new NoSuchElementException("heap is empty");
+        return prio[0];
+    }
+
+    /** Return the priority of id v.
+     *  Throw an IllegalArgumentException if v is not in the heap. */
+    public double priority(int v) {
+        if (!contains(v))
+            throw new IllegalArgumentException("v is not in the heap");
+        return prio[pos[v]];
+    }
+
+    /** Remove and return the id of this heap with lowest priority.
+     *  The time is logarithmic in the size of the heap.
+     *  Throw a NoSuchElementException if the heap is empty. */
+    public int poll() {
+        if (size <= 0) throw new NoSuchElementException("heap is empty");
+
+        int v= ids[0];
+        size= size - 1;
+        pos[v]= -1;
+        if (size > 0) {
+            ids[0]= ids[size];
+            prio[0]= prio[size];
+            pos[ids[0]]= 0;
+            bubbleDown(0);
+        }
+        return v;
+    }
+
+    /** Change the priority of id v to p.
+     *  The time is logarithmic in the size of the heap.
+     *  Throw an IllegalArgumentException if v is not in the heap. */
+    public void changePriority(int v, double p) {
+        if (!contains(v))
+            throw new IllegalArgumentException("v is not in the heap");
+        int k= pos[v];
+        double oldP= prio[k];
+        prio[k]= p;
+        if (p > oldP) {
+            bubbleDown(k);
+        } else {
+            bubbleUp(k);
+        }
+    }
+
+    /** Remove all ids from this heap, keeping its capacity. The time is
+     *  proportional to the size of the heap, not its capacity. */
+    public void clear() {
+        for (int k= 0; k < size; ++k)
+            pos[ids[k]]= -1;
+        size= 0;
+    }
+
+    /** Bubble ids[k] up the heap to its right place.
+     *  Precondition: Priority of every ids[i] >= its parent's priority
+     *                except perhaps for ids[k]  AND  0 <= k < size. */
+    private void bubbleUp(int k) {
+        int v= ids[k];
+        double p= prio[k];
+        // Inv: the hole at k can take p without violating the invariant below k
+        while (k > 0) {
+            int parent= (k - 1) / d;
+            if (p >= prio[parent]) break;
+            ids[k]= ids[parent];
+            prio[k]= prio[parent];
+            pos[ids[k]]= k;
+            k= parent;
+        }
+        ids[k]= v;
+        prio[k]= p;
+        pos[v]= k;
+    }
+
+    /** Bubble ids[k] down in heap until it finds the right place. If several
+     *  children share the smallest priority, choose the last of them.
+     *  Precondition: 0 <= k < size  and  each ids[i]'s priority <= its
+     *                children's priorities except perhaps for ids[k]. */
+    private void bubbleDown(int k) {
+        int v= ids[k];
+        double p= prio[k];
+        while (true) {
+            int first= d * k + 1;
+            if (first >= size) break;
+            int last= Math.min(first + d, size);
+            int sc= first;
+            for (int c= first + 1; c < last; ++c) {
+                if (prio[c] <= prio[sc])
+                    sc= c;
+            }
+            if (p <= prio[sc]) break;
+            ids[k]= ids[sc];
+            prio[k]= prio[sc];
+            pos[ids[k]]= k;
+            k= sc;
+        }
+        ids[k]= v;
+        prio[k]= p;
+        pos[v]= k;
+    }
+}
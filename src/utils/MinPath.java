@@ -1,106 +1,502 @@
-package utils;
-
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
-
-import models.Edge;
-import models.Node;
-
-/** This class contains Dijkstra's shortest-path algorithm and some other methods. */
-public class MinPath {
-
-    /** Return the shortest path from first to last ---or the empty list
-     * if a path does not exist.
-     * Note: The empty list is NOT "null"; it is a list with 0 elements. */
-    public static List<Node> minPath(Node first, Node last) {
-        /* TODO Read note A7 FAQs on the course piazza for ALL details. */
-        Heap<Node> F= new Heap<Node>(); // As in lecture slides
-
-        // map contains an entry for each node in S or F. Thus, |map| = |S| + |F|.
-        // For each such node, the value part in map contains the shortest known
-        // distance to the node and the node's backpointer on that shortest path.
-        HashMap<Node, SFinfo> map= new HashMap<Node, SFinfo>();
-
-        F.insert(first, 0);
-        map.put(first, new SFinfo(0, null));
-        // inv: See Piazza note 1008 (Fall 2017), together with the def of F and map
-        while (F.size() != 0) {
-            Node f= F.poll();
-            if (f == last) return buildPath(last, map);
-            int fDist= map.get(f).distance;
-            
-            for (Edge e : f.getExits()) {// for each neighbor w of f
-                Node w= e.getOther(f);
-                int newWdist= fDist + (int) e.length;
-                SFinfo wInfo= map.get(w);
-
-                if (wInfo == null) { //if w not in S or F
-                    map.put(w, new SFinfo(newWdist, f));
-                    F.insert(w, newWdist);
-                } else if (newWdist < wInfo.distance) {
-                    wInfo.distance= newWdist;
-                    wInfo.bckPntr= f;
-                    F.changePriority(w, newWdist);
-                }
-            }
-        }
-
-        // no path from start to end
-        return new LinkedList<Node>();
-    }
-
-
-    /** Return the path from the first node to node last.
-     *  Precondition: info contains all the necessary information about
-     *  the path. */
-    public static List<Node> buildPath(Node last, HashMap<Node, SFinfo> info) {
-        List<Node> path= new LinkedList<Node>();
-        Node p= last;
-        // invariant: All the nodes from p's successor to the end are in
-        //            path, in reverse order.
-        while (p != null) {
-            path.add(0, p);
-            p= info.get(p).bckPntr;
-        }
-        return path;
-    }
-
-    /** Return the sum of the weights of the edges on path path. */
-    public static int pathWeight(List<Node> path) {
-        if (path.size() == 0) return 0;
-        synchronized(path) {
-            Iterator<Node> iter= path.iterator();
-            Node p= iter.next();  // First node on path
-            int s= 0;
-            // invariant: s = sum of weights of edges from start to p
-            while (iter.hasNext()) {
-                Node q= iter.next();
-                s= s + p.getEdge(q).length;
-                p= q;
-            }
-            return s;
-        }
-    }
-
-    /** An instance contains information about a node: the previous node
-     *  on a shortest path from the start node to this node and the distance
-     *  of this node from the start node. */
-    private static class SFinfo {
-        private Node bckPntr; // backpointer on path from start node to this one
-        private int distance; // distance from start node to this one
-
-        /** Constructor: an instance with distance d from the start node and
-         *  backpointer p.*/
-        private SFinfo(int d, Node p) {
-            distance= d; // Distance from start node to this one.
-            bckPntr= p;  // Backpointer on the path (null if start node)
-        }
-
-        /** return a representation of this instance. */
-        public String toString() {
-            return "dist " + distance + ", bckptr " + bckPntr;
-        }
-    }
-}
+package utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+import models.CsrGraph;
+import models.Edge;
+import models.Node;
+
+/** This class contains Dijkstra's shortest-path algorithm and some other methods. */
+public class MinPath {
+
+    /** Return the shortest path from first to last ---or the empty list
+     * if a path does not exist.
+     * Note: The empty list is NOT "null"; it is a list with 0 elements. */
+    public static List<Node> minPath(Node first, Node last) {
+        return nodes(first, minPath(first, last, Engine.HEAP));
+    }
+
+    /** Return a shortest path from first to last as a Path of Node ids,
+     * computed with engine e ---or Path.EMPTY if a path does not exist. Its
+     * weight and hop lengths come from the search, so no Edge is looked up.
+     * BUCKET searches with a heap here, as HEAP does; ASTAR and
+     * BIDIRECTIONAL may return a different path of the same weight.
+     * minPath, aStarPath and bidirectionalPath return the Nodes of this
+     * Path.
+     * Precondition: the Board containing first and last has been built. */
+    public static Path minPath(Node first, Node last, Engine e) {
+        switch (e) {
+        case ASTAR:
+            return aStarSearch(first, last);
+        case BIDIRECTIONAL:
+            return bidirectionalSearch(first, last);
+        default:
+            return heapSearch(first, last);
+        }
+    }
+
+    /** minPath(first, last, e) using Dijkstra's algorithm with a heap. */
+    private static Path heapSearch(Node first, Node last) {
+        /* TODO Read note A7 FAQs on the course piazza for ALL details. */
+        IdHeap<Node> F= new IdHeap<Node>(Node::getId); // As in lecture slides
+
+        // map contains an entry for each node in S or F. Thus, |map| = |S| + |F|.
+        // For each such node, the value part in map contains the shortest known
+        // distance to the node and the node's backpointer on that shortest path.
+        HashMap<Node, SFinfo> map= new HashMap<Node, SFinfo>();
+
+        F.insert(first, 0);
+        map.put(first, new SFinfo(0, null));
+        // inv: See Piazza note 1008 (Fall 2017), together with the def of F and map
+        while (F.size() != 0) {
+            Node f= F.poll();
+            if (f == last) return buildPath(last, map);
+            int fDist= map.get(f).distance;
+            
+            for (Edge e : f.getExits()) {// for each neighbor w of f
+                Node w= e.getOther(f);
+                int newWdist= fDist + (int) e.length;
+                SFinfo wInfo= map.get(w);
+
+                if (wInfo == null) { //if w not in S or F
+                    map.put(w, new SFinfo(newWdist, f));
+                    F.insert(w, newWdist);
+                } else if (newWdist < wInfo.distance) {
+                    wInfo.distance= newWdist;
+                    wInfo.bckPntr= f;
+                    F.changePriority(w, newWdist);
+                }
+            }
+        }
+
+        // no path from start to end
+        return Path.EMPTY;
+    }
+
+    /** An instance names an algorithm that minPath can use on a CsrGraph.
+     * All of them return a path of minimum weight. HEAP and BUCKET return the
+     * same path, but ASTAR and BIDIRECTIONAL may pick a different one among
+     * paths of equal weight. */
+    public static enum Engine {
+        /** Dijkstra's algorithm with an IntHeap; O(log n) per poll. */
+        HEAP,
+        /** Dijkstra's algorithm with a BucketQueue keyed on the int
+         * distances; amortized O(1) per poll, plus time proportional to the
+         * length of the path. Best on dense boards, whose edges are short. */
+        BUCKET,
+        /** A* search guided by the straight-line distance to the last node,
+         * scaled by CsrGraph.lengthRatio() so that it never overestimates.
+         * It settles far fewer nodes on point-to-point queries, but it may
+         * return a different path of the same weight. */
+        ASTAR,
+        /** Dijkstra's algorithm run from both ends at once, stopping when the
+         * two searches meet. Edges are undirected, so this settles about
+         * half the nodes that HEAP does, but it may return a different path
+         * of the same weight. */
+        BIDIRECTIONAL
+    }
+
+    /* Every Edge is longer than this fraction of the straight-line distance
+     * between its exits: exits are distinct int points, so that distance d
+     * is at least 1, and the length is d rounded to an int. */
+    private static final double LENGTH_RATIO= 2.0 / 3.0;
+
+    /** Return a shortest path in g from node first to node last ---or
+     * Path.EMPTY if a path does not exist. Same as
+     * minPath(g, first, last, Engine.HEAP). */
+    public static Path minPath(CsrGraph g, int first, int last) {
+        return minPath(g, first, last, Engine.HEAP);
+    }
+
+    /** Return a shortest path in g from node first to node last, computed
+     * with engine e ---or Path.EMPTY if a path does not exist.
+     *
+     * Among shortest paths, HEAP and BUCKET return the canonical one: each
+     * node's predecessor is the neighbor with the smallest id that lies on
+     * some shortest path to it. ASTAR and BIDIRECTIONAL may return another
+     * path of the same weight. */
+    public static Path minPath(CsrGraph g, int first, int last, Engine e) {
+        switch (e) {
+        case BUCKET:
+            return bucketPath(g, first, last);
+        case ASTAR:
+            return aStarPath(g, first, last);
+        case BIDIRECTIONAL:
+            return bidirectionalPath(g, first, last);
+        default:
+            return heapPath(g, first, last);
+        }
+    }
+
+    /** minPath on g using Dijkstra's algorithm with an IntHeap. */
+    private static Path heapPath(CsrGraph g, int first, int last) {
+        int n= g.nodeCount();
+        return search(g, first, last, Dijkstra.heap(new IntHeap(n)));
+    }
+
+    /** minPath on g using Dijkstra's algorithm with a BucketQueue. */
+    private static Path bucketPath(CsrGraph g, int first, int last) {
+        int n= g.nodeCount();
+        return search(g, first, last,
+            Dijkstra.buckets(new BucketQueue(n, g.maxWeight())));
+    }
+
+    /** minPath on g using A* search. The heuristic h(v) is the straight-line
+     * distance from v to last times g.lengthRatio() (shaved slightly, to
+     * absorb rounding). h is consistent: h(u) <= weight(u, v) + h(v) for every
+     * edge, so a node's distance is final when it is polled, as in Dijkstra's
+     * algorithm. A* is Dijkstra's algorithm with the key of each node in F
+     * raised by h. */
+    private static Path aStarPath(CsrGraph g, int first, int last) {
+        int n= g.nodeCount();
+        double r= g.lengthRatio() * (1 - 1e-9);
+        int lx= g.x(last);
+        int ly= g.y(last);
+        IntHeap F= new IntHeap(n);
+        return search(g, first, last, new Dijkstra.Frontier() {
+            public boolean isEmpty() { return F.isEmpty(); }
+            public int poll() { return F.poll(); }
+            public void insert(int v, int d) { F.insert(v, d + h(v)); }
+            public void decrease(int v, int d) {
+                F.changePriority(v, d + h(v));
+            }
+
+            /** Return the heuristic of node v. */
+            private double h(int v) {
+                return r * Utils.distance(g.x(v), g.y(v), lx, ly);
+            }
+        });
+    }
+
+    /** Return the path from first to last found by searching g with
+     * frontier F ---or Path.EMPTY if there is none. */
+    private static Path search(CsrGraph g, int first, int last,
+            Dijkstra.Frontier F) {
+        int n= g.nodeCount();
+        int[] dist= new int[n];
+        int[] bck= new int[n];
+        if (!Dijkstra.search(g, first, last, dist, bck, F))
+            return Path.EMPTY; // no path from start to end
+        return buildPath(last, bck, dist);
+    }
+
+    /** minPath on g using bidirectional Dijkstra. A forward search from first
+     * and a backward search from last alternately settle the node with the
+     * smaller distance. mu is the length of the shortest path found so far
+     * through a node reached by both searches; once the two smallest
+     * distances in the frontiers sum to at least mu, no shorter path can
+     * exist. */
+    private static Path bidirectionalPath(CsrGraph g, int first, int last) {
+        if (first == last) return new Path(new int[] { first }, new int[0], 0);
+        int n= g.nodeCount();
+        IntHeap Ff= new IntHeap(n);
+        IntHeap Fb= new IntHeap(n);
+        // distF/bckF are as in heapPath for the search from first, and
+        // distB/bckB for the search from last (backpointers point to last).
+        int[] distF= new int[n];
+        int[] distB= new int[n];
+        int[] bckF= new int[n];
+        int[] bckB= new int[n];
+        Arrays.fill(distF, Integer.MAX_VALUE);
+        Arrays.fill(distB, Integer.MAX_VALUE);
+
+        Ff.insert(first, 0);
+        distF[first]= 0;
+        bckF[first]= -1;
+        Fb.insert(last, 0);
+        distB[last]= 0;
+        bckB[last]= -1;
+        long mu= Long.MAX_VALUE; // length of the best path found so far
+        int meet= -1; // the node where that path switches searches
+        while (!Ff.isEmpty() && !Fb.isEmpty()
+            && Ff.peekPriority() + Fb.peekPriority() < mu) {
+            boolean forward= Ff.peekPriority() <= Fb.peekPriority();
+            IntHeap F= forward ? Ff : Fb;
+            int[] dist= forward ? distF : distB;
+            int[] bck= forward ? bckF : bckB;
+            int[] other= forward ? distB : distF;
+
+            int f= F.poll();
+            int fDist= dist[f];
+            for (int i= g.begin(f); i < g.end(f); ++i) { // for each neighbor w of f
+                int w= g.target(i);
+                int newWdist= fDist + g.weight(i);
+                if (dist[w] == Integer.MAX_VALUE) { // if w not in S or F
+                    dist[w]= newWdist;
+                    bck[w]= f;
+                    F.insert(w, newWdist);
+                } else if (newWdist < dist[w]) {
+                    dist[w]= newWdist;
+                    bck[w]= f;
+                    F.changePriority(w, newWdist);
+                } else {
+                    continue;
+                }
+                if (other[w] != Integer.MAX_VALUE
+                    && (long) dist[w] + other[w] < mu) {
+                    mu= (long) dist[w] + other[w];
+                    meet= w;
+                }
+            }
+        }
+
+        // no path from start to end
+        if (meet == -1) return Path.EMPTY;
+
+        int length= 0;
+        for (int p= meet; p != -1; p= bckF[p])
+            ++length;
+        int split= length;
+        for (int p= bckB[meet]; p != -1; p= bckB[p])
+            ++length;
+        int[] ids= new int[length];
+        int[] hops= new int[length - 1];
+        ids[split - 1]= meet;
+        for (int p= meet, k= split - 1; bckF[p] != -1; p= bckF[p], --k) {
+            ids[k - 1]= bckF[p];
+            hops[k - 1]= distF[p] - distF[bckF[p]];
+        }
+        for (int p= meet, k= split; bckB[p] != -1; p= bckB[p], ++k) {
+            ids[k]= bckB[p];
+            hops[k - 1]= distB[p] - distB[bckB[p]];
+        }
+        return new Path(ids, hops, (int) mu);
+    }
+
+    /** Return the path from the first node to node last, following the
+     * backpointers in bck (-1 marks the first node). dist[v] is the distance
+     * of v along the path, so each hop's length is a difference of two
+     * distances and no edge needs to be looked up. */
+    static Path buildPath(int last, int[] bck, int[] dist) {
+        int length= 0;
+        for (int p= last; p != -1; p= bck[p])
+            ++length;
+        int[] ids= new int[length];
+        int[] hops= new int[length - 1];
+        // invariant: ids[length..] holds the nodes from p's successor to
+        //            last, and hops holds the edges between them.
+        for (int p= last; p != -1; p= bck[p]) {
+            ids[--length]= p;
+            if (bck[p] != -1)
+                hops[length - 1]= dist[p] - dist[bck[p]];
+        }
+        return new Path(ids, hops, dist[last]);
+    }
+
+
+    /** Return a shortest path from first to last ---or the empty list if a
+     * path does not exist--- found with A* search. It settles far fewer nodes
+     * than minPath when first and last are close together, but it may
+     * return a different path of the same weight.
+     *
+     * The heuristic is the straight-line distance to last times
+     * LENGTH_RATIO, which never overestimates and is consistent, so each
+     * node's distance is final when it is polled. */
+    public static List<Node> aStarPath(Node first, Node last) {
+        return nodes(first, minPath(first, last, Engine.ASTAR));
+    }
+
+    /** minPath(first, last, e) using A* search; see aStarPath. */
+    private static Path aStarSearch(Node first, Node last) {
+        IdHeap<Node> F= new IdHeap<Node>(Node::getId);
+
+        // map is as in minPath; the priority of a node in F is its distance
+        // plus the heuristic.
+        HashMap<Node, SFinfo> map= new HashMap<Node, SFinfo>();
+
+        F.insert(first, LENGTH_RATIO * Utils.distance(first.getX(),
+            first.getY(), last.getX(), last.getY()));
+        map.put(first, new SFinfo(0, null));
+        while (F.size() != 0) {
+            Node f= F.poll();
+            if (f == last) return buildPath(last, map);
+            int fDist= map.get(f).distance;
+
+            for (Edge e : f.getExits()) {// for each neighbor w of f
+                Node w= e.getOther(f);
+                int newWdist= fDist + e.length;
+                SFinfo wInfo= map.get(w);
+                double h= LENGTH_RATIO * Utils.distance(w.getX(), w.getY(),
+                    last.getX(), last.getY());
+
+                if (wInfo == null) { //if w not in S or F
+                    map.put(w, new SFinfo(newWdist, f));
+                    F.insert(w, newWdist + h);
+                } else if (newWdist < wInfo.distance) {
+                    wInfo.distance= newWdist;
+                    wInfo.bckPntr= f;
+                    F.changePriority(w, newWdist + h);
+                }
+            }
+        }
+
+        // no path from start to end
+        return Path.EMPTY;
+    }
+
+    /** Return a shortest path from first to last ---or the empty list if a
+     * path does not exist--- found with bidirectional Dijkstra, which settles
+     * about half the nodes that minPath does. It may return a different path
+     * of the same weight. See bidirectionalPath(CsrGraph, int, int). */
+    public static List<Node> bidirectionalPath(Node first, Node last) {
+        return nodes(first, minPath(first, last, Engine.BIDIRECTIONAL));
+    }
+
+    /** minPath(first, last, e) using bidirectional Dijkstra; see
+     * bidirectionalPath. */
+    private static Path bidirectionalSearch(Node first, Node last) {
+        if (first == last)
+            return new Path(new int[] {first.getId()}, new int[0], 0);
+        IdHeap<Node> Ff= new IdHeap<Node>(Node::getId);
+        IdHeap<Node> Fb= new IdHeap<Node>(Node::getId);
+
+        // mapF is as in minPath for the search from first, and mapB for the
+        // search from last (backpointers point toward last).
+        HashMap<Node, SFinfo> mapF= new HashMap<Node, SFinfo>();
+        HashMap<Node, SFinfo> mapB= new HashMap<Node, SFinfo>();
+
+        Ff.insert(first, 0);
+        mapF.put(first, new SFinfo(0, null));
+        Fb.insert(last, 0);
+        mapB.put(last, new SFinfo(0, null));
+        long mu= Long.MAX_VALUE; // length of the best path found so far
+        Node meet= null; // the node where that path switches searches
+        while (Ff.size() != 0 && Fb.size() != 0
+            && (long) mapF.get(Ff.peek()).distance
+                + mapB.get(Fb.peek()).distance < mu) {
+            boolean forward= mapF.get(Ff.peek()).distance
+                <= mapB.get(Fb.peek()).distance;
+            IdHeap<Node> F= forward ? Ff : Fb;
+            HashMap<Node, SFinfo> map= forward ? mapF : mapB;
+            HashMap<Node, SFinfo> other= forward ? mapB : mapF;
+
+            Node f= F.poll();
+            int fDist= map.get(f).distance;
+            for (Edge e : f.getExits()) {// for each neighbor w of f
+                Node w= e.getOther(f);
+                int newWdist= fDist + e.length;
+                SFinfo wInfo= map.get(w);
+
+                if (wInfo == null) { //if w not in S or F
+                    map.put(w, new SFinfo(newWdist, f));
+                    F.insert(w, newWdist);
+                } else if (newWdist < wInfo.distance) {
+                    wInfo.distance= newWdist;
+                    wInfo.bckPntr= f;
+                    F.changePriority(w, newWdist);
+                } else {
+                    continue;
+                }
+                SFinfo oInfo= other.get(w);
+                if (oInfo != null && (long) newWdist + oInfo.distance < mu) {
+                    mu= (long) newWdist + oInfo.distance;
+                    meet= w;
+                }
+            }
+        }
+
+        // no path from start to end
+        if (meet == null) return Path.EMPTY;
+
+        // the path from first to meet, then on to last along mapB
+        int before= 0, after= 0;
+        for (Node p= meet; p != null; p= mapF.get(p).bckPntr)
+            ++before;
+        for (Node p= mapB.get(meet).bckPntr; p != null; p= mapB.get(p).bckPntr)
+            ++after;
+        int[] ids= new int[before + after];
+        int[] hops= new int[before + after - 1];
+        fill(meet, mapF, ids, hops, before);
+        int k= before;
+        for (Node p= meet, q; (q= mapB.get(p).bckPntr) != null; p= q) {
+            ids[k]= q.getId();
+            hops[k - 1]= mapB.get(p).distance - mapB.get(q).distance;
+            ++k;
+        }
+        return new Path(ids, hops, (int) mu);
+    }
+
+    /** Return the path from the first node to node last.
+     *  Precondition: info contains all the necessary information about
+     *  the path. */
+    private static Path buildPath(Node last, HashMap<Node, SFinfo> info) {
+        int length= 0;
+        for (Node p= last; p != null; p= info.get(p).bckPntr)
+            ++length;
+        int[] ids= new int[length];
+        int[] hops= new int[length - 1];
+        fill(last, info, ids, hops, length);
+        return new Path(ids, hops, info.get(last).distance);
+    }
+
+    /** Put the ids of the length nodes on the path from the first node to
+     * node last, following the backpointers in info, into ids[0..length-1],
+     * and the lengths of the hops between them into hops[0..length-2]. Each
+     * hop's length is a difference of two distances in info. */
+    private static void fill(Node last, HashMap<Node, SFinfo> info,
+            int[] ids, int[] hops, int length) {
+        // invariant: ids[length..] holds the nodes from p's successor to
+        //            last, and hops holds the edges between them.
+        for (Node p= last; p != null; p= info.get(p).bckPntr) {
+            ids[--length]= p.getId();
+            Node q= info.get(p).bckPntr;
+            if (q != null)
+                hops[length - 1]= info.get(p).distance - info.get(q).distance;
+        }
+    }
+
+    /** Return a new list of the Nodes on path, which starts at Node first.
+     * Each step follows the current Node's neighbors by id, so no lookup of
+     * Nodes on the Board is needed.
+     * Precondition: the Board containing first has been built. */
+    static List<Node> nodes(Node first, Path path) {
+        List<Node> nodes= new LinkedList<Node>();
+        if (path.isEmpty()) return nodes;
+        Node n= first;
+        nodes.add(n);
+        for (int k= 1; k < path.size(); ++k) {
+            n= n.neighbor(n.neighborIndex(path.node(k)));
+            nodes.add(n);
+        }
+        return nodes;
+    }
+
+    /** Return the sum of the weights of the edges on path path. Use
+     * minPath(Node, Node, Engine) to get a Path, whose weight() takes
+     * constant time.
+     * Precondition: the Board containing the Nodes has been built. */
+    public static int pathWeight(List<Node> path) {
+        int s= 0;
+        Node p= null;
+        // invariant: s = sum of weights of edges from the first node to p
+        for (Node q : path) {
+            if (p != null)
+                s= s + p.edgeLength(p.neighborIndex(q.getId()));
+            p= q;
+        }
+        return s;
+    }
+
+    /** An instance contains information about a node: the previous node
+     *  on a shortest path from the start node to this node and the distance
+     *  of this node from the start node. */
+    private static class SFinfo {
+        private Node bckPntr; // backpointer on path from start node to this one
+        private int distance; // distance from start node to this one
+
+        /** Constructor: an instance with distance d from the start node and
+         *  backpointer p.*/
+        private SFinfo(int d, Node p) {
+            distance= d; // Distance from start node to this one.
+            bckPntr= p;  // Backpointer on the path (null if start node)
+        }
+
+        /** return a representation of this instance. */
+        public String toString() {
+            return "dist " + distance + ", bckptr " + bckPntr;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package utils;
+
+import java.util.Arrays;
+
+/** An instance is an immutable path in a CsrGraph: the ids of its nodes, the
+ * length of each hop, and the total weight, which is computed once when the
+ * path is built. All accessors take constant time. */
+public final class Path {
+    /** The path with no nodes, returned when no path exists. */
+    public static final Path EMPTY= new Path(new int[0], new int[0], 0);
+
+    /* ids[k] is the id of the k-th node on this path. */
+    private final int[] ids;
+
+    /* hops[k] is the length of the edge from ids[k] to ids[k+1]. */
+    private final int[] hops;
+
+    /* The sum of hops. */
+    private final int weight;
+
+    /** Constructor: a path through the nodes ids with hop lengths hops and
+     * total weight w. The arrays are not copied, so callers must not keep
+     * them. Precondition: hops.length = max(ids.length - 1, 0) and w is the
+     * sum of hops. */
+    Path(int[] ids, int[] hops, int w) {
+        this.ids= ids;
+        this.hops= hops;
+        weight= w;
+    }
+
+    /** Return the number of nodes on this path. */
+    public int size() {
+        return ids.length;
+    }
+
+    /** Return true iff this path has no nodes. */
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    /** Return the id of the k-th node on this path, 0 <= k < size(). */
+    public int node(int k) {
+        return ids[k];
+    }
+
+    /** Return the id of the first node. Precondition: this is not empty. */
+    public int first() {
+        return ids[0];
+    }
+
+    /** Return the id of the last node. Precondition: this is not empty. */
+    public int last() {
+        return ids[ids.length - 1];
+    }
+
+    /** Return the length of the edge from node(k) to node(k + 1),
+     * 0 <= k < size() - 1. */
+    public int hopLength(int k) {
+        return hops[k];
+    }
+
+    /** Return the sum of the lengths of the edges on this path. */
+    public int weight() {
+        return weight;
+    }
+
+    /** Return a new array of the ids of the nodes on this path. */
+    public int[] toArray() {
+        return ids.clone();
+    }
+
+    /** Return true iff ob is a Path through the same nodes as this one. */
+    @Override
+    public boolean equals(Object ob) {
+        if (ob == this) return true;
+        if (ob == null || getClass() != ob.getClass()) return false;
+        return Arrays.equals(ids, ((Path) ob).ids);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ids);
+    }
+
+    /** Return the ids on this path and its weight, e.g. "[0, 4, 2] (17)". */
+    @Override
+    public String toString() {
+        return Arrays.toString(ids) + " (" + weight + ")";
+    }
+}
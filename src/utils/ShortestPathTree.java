@@ -0,0 +1,105 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import models.CsrGraph;
+import models.Node;
+
+/** An instance is a shortest-path tree of a CsrGraph rooted at one node,
+ * computed once with Dijkstra's algorithm. Edges are undirected, so it gives
+ * the shortest distance and a shortest path from every node TO the root as
+ * well as from the root.
+ *
+ * distance takes constant time, and a path takes time proportional to its
+ * length. Parents are chosen as in MinPath.minPath(CsrGraph, int, int): the
+ * neighbor with the smallest id among those on a shortest path. */
+public class ShortestPathTree {
+    /** The distance of a node that is not connected to the root. */
+    public static final int UNREACHABLE= Integer.MAX_VALUE;
+
+    /* The id of the root. */
+    private final int root;
+
+    /* dist[v] is the length of a shortest path between v and the root, or
+     * UNREACHABLE. */
+    private final int[] dist;
+
+    /* parent[v] is the next node after v on the path from v to the root;
+     * -1 for the root and for unreachable nodes. */
+    private final int[] parent;
+
+    /** Constructor: the shortest-path tree of g rooted at node root. */
+    public ShortestPathTree(CsrGraph g, int root) {
+        this.root= root;
+        int n= g.nodeCount();
+        dist= new int[n];
+        parent= new int[n];
+        Arrays.fill(parent, -1); // the search sets it for reached nodes only
+        Dijkstra.search(g, root, -1, dist, parent,
+            Dijkstra.heap(new IntHeap(n)));
+    }
+
+    /** Constructor: the shortest-path tree rooted at node root with the
+     * given distances and parents, as returned by distance(int) and
+     * parent(int) of a tree computed earlier. The arrays are not copied. */
+    public ShortestPathTree(int root, int[] dist, int[] parent) {
+        if (dist.length != parent.length)
+            throw new IllegalArgumentException("dist and parent lengths differ");
+        if (root < 0 || root >= dist.length)
+            throw new IllegalArgumentException("root out of range");
+        this.root= root;
+        this.dist= dist;
+        this.parent= parent;
+    }
+
+    /** Return the id of the root of this tree. */
+    public int getRoot() {
+        return root;
+    }
+
+    /** Return the length of a shortest path between node v and the root, or
+     * UNREACHABLE if there is none. */
+    public int distance(int v) {
+        return dist[v];
+    }
+
+    /** Return the length of a shortest path between n and the root, or
+     * UNREACHABLE if there is none. */
+    public int distance(Node n) {
+        return dist[n.getId()];
+    }
+
+    /** Return the id of the node after v on the shortest path from v to the
+     * root, or -1 if v is the root or is unreachable. */
+    public int parent(int v) {
+        return parent[v];
+    }
+
+    /** Return a shortest path from node v to the root ---or Path.EMPTY if
+     * there is none. */
+    public Path pathToRoot(int v) {
+        if (dist[v] == UNREACHABLE) return Path.EMPTY;
+        int length= 0;
+        for (int p= v; p != -1; p= parent[p])
+            ++length;
+        int[] ids= new int[length];
+        int[] hops= new int[length - 1];
+        length= 0;
+        for (int p= v; p != -1; p= parent[p]) {
+            ids[length]= p;
+            if (parent[p] != -1)
+                hops[length]= dist[p] - dist[parent[p]];
+            ++length;
+        }
+        return new Path(ids, hops, dist[v]);
+    }
+
+    /** Return a new list of the Nodes on a shortest path from n to the root,
+     * both included ---or the empty list if there is none. Each step follows
+     * the current Node's neighbors by id (see Node.neighborIndex), so no
+     * lookup of Nodes on the Board is needed. */
+    public List<Node> pathToRoot(Node n) {
+        return MinPath.nodes(n, pathToRoot(n.getId()));
+    }
+}